@@ -0,0 +1,15 @@
+package com.example.cityapi.reactive;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@Slf4j
+@SpringBootApplication
+public class CityApiReactiveApplication {
+
+	public static void main(String[] args) {
+		SpringApplication.run(CityApiReactiveApplication.class, args);
+		log.info("Spring Boot City API (reactive) application has been loaded");
+	}
+}
@@ -0,0 +1,26 @@
+package com.example.cityapi.reactive.config;
+
+import com.example.cityapi.reactive.handler.CityHandler;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.*;
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+@Configuration
+public class CityRouterConfig {
+
+    private static final String CITY_API_URL_PATH = "/api/v1/cities";
+
+    @Bean
+    public RouterFunction<ServerResponse> cityRoutes(CityHandler cityHandler) {
+        return route(POST(CITY_API_URL_PATH), cityHandler::createNewCity)
+                .andRoute(GET(CITY_API_URL_PATH), cityHandler::getAllCities)
+                .andRoute(GET(CITY_API_URL_PATH + "/name/{name}"), cityHandler::getCityByName)
+                .andRoute(GET(CITY_API_URL_PATH + "/{id}"), cityHandler::getCityById)
+                .andRoute(PUT(CITY_API_URL_PATH + "/{id}"), cityHandler::updateCityById)
+                .andRoute(DELETE(CITY_API_URL_PATH + "/{id}"), cityHandler::deleteCityById);
+    }
+}
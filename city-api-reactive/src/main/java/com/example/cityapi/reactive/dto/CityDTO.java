@@ -0,0 +1,23 @@
+package com.example.cityapi.reactive.dto;
+
+import com.example.cityapi.reactive.enums.State;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotBlank;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CityDTO {
+
+    private Long id;
+
+    @NotBlank
+    private String name;
+
+    private State state;
+}
@@ -0,0 +1,144 @@
+package com.example.cityapi.reactive.handler;
+
+import com.example.cityapi.reactive.dto.CityDTO;
+import com.example.cityapi.reactive.dto.MessageResponseDTO;
+import com.example.cityapi.reactive.mapper.CityMapper;
+import com.example.cityapi.reactive.model.City;
+import com.example.cityapi.reactive.repository.CityRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Validator;
+
+/**
+ * Same contract as the blocking {@code CityController}, served by WebFlux functional
+ * handlers. The full list is written as the rows arrive from R2DBC, and the database is
+ * only asked for more rows as fast as the client reads them.
+ */
+@Slf4j
+@Component
+public class CityHandler {
+
+    private final CityRepository cityRepository;
+
+    private final Validator validator;
+
+    public CityHandler(CityRepository cityRepository, Validator validator) {
+        this.cityRepository = cityRepository;
+        this.validator = validator;
+    }
+
+    public Mono<ServerResponse> createNewCity(ServerRequest request) {
+
+        return request.bodyToMono(CityDTO.class)
+                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Missing city")))
+                .doOnNext(this::validate)
+                .map(CityMapper::dtoToModel)
+                .flatMap(cityRepository::save)
+                .flatMap(savedCity -> ServerResponse.status(HttpStatus.CREATED)
+                        .bodyValue(createMessageResponse("City successfully created with ID ", savedCity.getId())));
+    }
+
+    public Mono<ServerResponse> getAllCities(ServerRequest request) {
+
+        log.info("Fetching all cities");
+
+        // NDJSON makes the per-element flushing explicit; JSON is still written as an incremental array
+        MediaType mediaType = request.headers().accept().contains(MediaType.APPLICATION_NDJSON)
+                ? MediaType.APPLICATION_NDJSON
+                : MediaType.APPLICATION_JSON;
+
+        return ServerResponse.ok()
+                .contentType(mediaType)
+                .body(cityRepository.findAllOrderedById().map(CityMapper::modelToDto), CityDTO.class);
+    }
+
+    public Mono<ServerResponse> getCityById(ServerRequest request) {
+
+        Long id = parseId(request);
+
+        log.info("Searching city id {} ", id);
+
+        return cityRepository.findById(id)
+                .switchIfEmpty(notFound(" not found with ID " + id))
+                .flatMap(city -> ServerResponse.ok().bodyValue(CityMapper.modelToDto(city)));
+    }
+
+    public Mono<ServerResponse> getCityByName(ServerRequest request) {
+
+        String name = request.pathVariable("name");
+
+        log.info("Searching city name {} ", name);
+
+        return cityRepository.findByName(name)
+                .switchIfEmpty(notFound(" not found with name " + name))
+                .flatMap(city -> ServerResponse.ok().bodyValue(CityMapper.modelToDto(city)));
+    }
+
+    public Mono<ServerResponse> updateCityById(ServerRequest request) {
+
+        Long id = parseId(request);
+
+        log.info("Updating city with id {} ", id);
+
+        return cityRepository.findById(id)
+                .switchIfEmpty(notFound(" not found with ID " + id))
+                .then(request.bodyToMono(CityDTO.class))
+                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Missing city")))
+                .doOnNext(this::validate)
+                .map(cityDTO -> {
+                    // The path decides which row is written, whatever id the body carries
+                    City city = CityMapper.dtoToModel(cityDTO);
+                    city.setId(id);
+                    return city;
+                })
+                .flatMap(cityRepository::save)
+                .flatMap(updatedCity -> ServerResponse.ok()
+                        .bodyValue(createMessageResponse("City successfully updated with ID ", updatedCity.getId())));
+    }
+
+    public Mono<ServerResponse> deleteCityById(ServerRequest request) {
+
+        Long id = parseId(request);
+
+        log.info("Deleting city with id {} ", id);
+
+        return cityRepository.findById(id)
+                .switchIfEmpty(notFound(" not found with ID " + id))
+                .flatMap(city -> cityRepository.deleteById(id))
+                .then(ServerResponse.noContent().build());
+    }
+
+    private void validate(CityDTO cityDTO) {
+
+        if (!validator.validate(cityDTO).isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid city");
+        }
+    }
+
+    private static Long parseId(ServerRequest request) {
+
+        try {
+            return Long.valueOf(request.pathVariable("id"));
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid city id", e);
+        }
+    }
+
+    private static Mono<City> notFound(String detail) {
+        return Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, City.class.getName() + detail));
+    }
+
+    private static MessageResponseDTO createMessageResponse(String message, Long id) {
+        return MessageResponseDTO
+                .builder()
+                .message(message + id)
+                .build();
+    }
+}
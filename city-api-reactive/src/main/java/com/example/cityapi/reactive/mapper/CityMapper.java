@@ -0,0 +1,28 @@
+package com.example.cityapi.reactive.mapper;
+
+import com.example.cityapi.reactive.dto.CityDTO;
+import com.example.cityapi.reactive.model.City;
+
+public final class CityMapper {
+
+    private CityMapper() {
+    }
+
+    public static CityDTO modelToDto(City city) {
+        return CityDTO
+                .builder()
+                .id(city.getId())
+                .name(city.getName())
+                .state(city.getState())
+                .build();
+    }
+
+    public static City dtoToModel(CityDTO cityDTO) {
+        return City
+                .builder()
+                .id(cityDTO.getId())
+                .name(cityDTO.getName())
+                .state(cityDTO.getState())
+                .build();
+    }
+}
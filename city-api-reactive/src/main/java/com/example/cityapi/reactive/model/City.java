@@ -0,0 +1,25 @@
+package com.example.cityapi.reactive.model;
+
+import com.example.cityapi.reactive.enums.State;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+@Data
+@Table("city")
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class City {
+
+    @Id
+    private Long id;
+
+    private String name;
+
+    private State state;
+
+}
@@ -0,0 +1,15 @@
+package com.example.cityapi.reactive.repository;
+
+import com.example.cityapi.reactive.model.City;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface CityRepository extends ReactiveCrudRepository<City, Long> {
+
+    Mono<City> findByName(String name);
+
+    @Query("select id, name, state from city order by id")
+    Flux<City> findAllOrderedById();
+}
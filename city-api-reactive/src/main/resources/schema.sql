@@ -0,0 +1,8 @@
+create table if not exists city (
+    id bigint auto_increment primary key,
+    name varchar(255) not null,
+    state varchar(255) not null
+);
+
+create index if not exists idx_city_name on city (name);
+create index if not exists idx_city_state on city (state);
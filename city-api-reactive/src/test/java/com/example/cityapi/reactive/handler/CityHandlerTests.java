@@ -0,0 +1,94 @@
+package com.example.cityapi.reactive.handler;
+
+import com.example.cityapi.reactive.config.CityRouterConfig;
+import com.example.cityapi.reactive.enums.State;
+import com.example.cityapi.reactive.model.City;
+import com.example.cityapi.reactive.repository.CityRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("Teste unitário dos handlers reativos")
+@WebFluxTest
+@Import({CityRouterConfig.class, CityHandler.class})
+public class CityHandlerTests {
+
+    private static final String CITY_API_URL_PATH = "/api/v1/cities";
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @MockBean
+    private CityRepository cityRepository;
+
+    @Test
+    @DisplayName("Quando GET é chamado, então uma lista de cidades deve ser retornada")
+    void whenGETIsCalledThenAnCityListShouldBeReturned() {
+        when(cityRepository.findAllOrderedById()).thenReturn(Flux.just(createFakeEntity()));
+
+        webTestClient.get().uri(CITY_API_URL_PATH)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].id").isEqualTo(1)
+                .jsonPath("$[0].name").isEqualTo("Joinville")
+                .jsonPath("$[0].state").isEqualTo("SC");
+    }
+
+    @Test
+    @DisplayName("Quando GET com Id inválido é chamado, então deve retornar 404")
+    void whenGETWithInvalidIdIsCalledThenNotFoundShouldBeReturned() {
+        when(cityRepository.findById(1L)).thenReturn(Mono.empty());
+
+        webTestClient.get().uri(CITY_API_URL_PATH + "/1")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    @DisplayName("Quando POST é chamado, uma cidade deve ser criada")
+    void whenPOSTIsCalledThenACityShouldBeCreated() {
+        when(cityRepository.save(City.builder().name("Joinville").state(State.SC).build()))
+                .thenReturn(Mono.just(createFakeEntity()));
+
+        webTestClient.post().uri(CITY_API_URL_PATH)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"name\":\"Joinville\",\"state\":\"SC\"}")
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("City successfully created with ID 1");
+    }
+
+    @Test
+    @DisplayName("Quando PUT é chamado, então a cidade do Id informado no caminho deve ser atualizada")
+    void whenPUTIsCalledThenTheCityWithThePathIdShouldBeUpdated() {
+        City updatedCity = City.builder().id(1L).name("Blumenau").state(State.SC).build();
+        when(cityRepository.findById(1L)).thenReturn(Mono.just(createFakeEntity()));
+        when(cityRepository.save(updatedCity)).thenReturn(Mono.just(updatedCity));
+
+        webTestClient.put().uri(CITY_API_URL_PATH + "/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"name\":\"Blumenau\",\"state\":\"SC\"}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("City successfully updated with ID 1");
+
+        verify(cityRepository).save(updatedCity);
+    }
+
+    private static City createFakeEntity() {
+        return City.builder().id(1L).name("Joinville").state(State.SC).build();
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.cityapi.benchmark;
+
+import com.example.cityapi.dto.request.CityDTO;
+import com.example.cityapi.enums.State;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deterministic city data shared by the benchmarks, spread evenly over every state.
+ */
+final class BenchmarkCities {
+
+    private static final State[] STATES = State.values();
+
+    private BenchmarkCities() {
+    }
+
+    static String name(int index) {
+        return "City " + index;
+    }
+
+    static State state(int index) {
+        return STATES[index % STATES.length];
+    }
+
+    static List<CityDTO> dtos(int rows) {
+
+        List<CityDTO> cities = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            cities.add(CityDTO
+                    .builder()
+                    .id(i + 1L)
+                    .name(name(i))
+                    .state(state(i))
+                    .build());
+        }
+        return cities;
+    }
+
+    static String csv(int rows) {
+
+        StringBuilder csv = new StringBuilder("name,state\n");
+        for (int i = 0; i < rows; i++) {
+            csv.append(name(i)).append(',').append(state(i).name()).append('\n');
+        }
+        return csv.toString();
+    }
+}
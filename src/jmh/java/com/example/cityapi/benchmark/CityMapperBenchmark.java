@@ -0,0 +1,54 @@
+package com.example.cityapi.benchmark;
+
+import com.example.cityapi.dto.request.CityDTO;
+import com.example.cityapi.mapper.CityMapper;
+import com.example.cityapi.model.City;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CityMapperBenchmark {
+
+    private final CityMapper cityMapper = CityMapper.INSTANCE;
+
+    private City city;
+
+    private CityDTO cityDTO;
+
+    @Setup
+    public void setUp() {
+        city = City
+                .builder()
+                .id(1L)
+                .name("Joinville")
+                .state(com.example.cityapi.enums.State.SC)
+                .build();
+
+        cityDTO = cityMapper.modelToDto(city);
+    }
+
+    @Benchmark
+    public CityDTO modelToDto() {
+        return cityMapper.modelToDto(city);
+    }
+
+    @Benchmark
+    public City dtoToModel() {
+        return cityMapper.dtoToModel(cityDTO);
+    }
+}
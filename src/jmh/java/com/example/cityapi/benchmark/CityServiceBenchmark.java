@@ -0,0 +1,98 @@
+package com.example.cityapi.benchmark;
+
+import com.example.cityapi.CityApiApplication;
+import com.example.cityapi.dto.request.CityDTO;
+import com.example.cityapi.exception.CityNotFoundException;
+import com.example.cityapi.service.CityImportService;
+import com.example.cityapi.service.CityService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Boots the application on an in-memory H2 database seeded with {@code rows} cities and
+ * measures the read paths of {@link CityService}, once through JPA and once from the
+ * in-memory snapshot. The result cache is turned off so lookups reach the read path.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CityServiceBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int rows;
+
+    @Param({"jpa", "snapshot"})
+    private String readMode;
+
+    private ConfigurableApplicationContext context;
+
+    private CityService cityService;
+
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+
+        context = new SpringApplicationBuilder(CityApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.profiles.active=",
+                        "spring.jpa.show-sql=false",
+                        "spring.cache.type=none",
+                        "spring.sleuth.enabled=false",
+                        "spring.zipkin.enabled=false",
+                        "city.read-mode=" + readMode)
+                .run();
+
+        context.getBean(CityImportService.class).importCsv(
+                new ByteArrayInputStream(BenchmarkCities.csv(rows).getBytes(StandardCharsets.UTF_8)));
+
+        cityService = context.getBean(CityService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<CityDTO> getAllCities() {
+        return cityService.getAllCities();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public CityDTO getCityById() throws CityNotFoundException {
+        return cityService.getCityById(1L + random.nextInt(rows));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public CityDTO getCityByName() throws CityNotFoundException {
+        return cityService.getCityByName(BenchmarkCities.name(random.nextInt(rows)));
+    }
+}
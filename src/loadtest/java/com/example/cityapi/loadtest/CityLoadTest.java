@@ -0,0 +1,295 @@
+package com.example.cityapi.loadtest;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load generator for the City API. Requests are started at a fixed rate no matter
+ * how fast the server answers, picked at random following {@code load.mix}, and their latency
+ * is recorded per endpoint in HdrHistograms. Run it with {@code mvn -Pload-test -DskipTests verify},
+ * which boots the application, or on its own against any running instance.
+ * <p>
+ * All requests come from one address, so the target must run with admission control off
+ * ({@code city.http.admission.enabled=false}, the default). Otherwise most requests above the
+ * per-client rate are answered with 429 and counted as errors.
+ */
+public class CityLoadTest {
+
+    private static final String CITIES_PATH = "/api/v1/cities";
+
+    private static final String CREATED_PREFIX = "City successfully created with ID ";
+
+    private final LoadTestSettings settings;
+
+    private final HttpClient httpClient;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+
+    private final List<Map<String, Object>> seededCities = new ArrayList<>();
+
+    /** Cities created during the run; deletes consume them so seeded cities stay readable. */
+    private final ConcurrentLinkedQueue<Long> createdIds = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicInteger createdCount = new AtomicInteger();
+
+    private final Endpoint[] weightedEndpoints;
+
+    CityLoadTest(LoadTestSettings settings) {
+        this.settings = settings;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        List<Endpoint> weighted = new ArrayList<>();
+        settings.mix.forEach((endpoint, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                weighted.add(endpoint);
+            }
+        });
+        this.weightedEndpoints = weighted.toArray(new Endpoint[0]);
+
+        for (Endpoint endpoint : Endpoint.values()) {
+            stats.put(endpoint, new EndpointStats());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        LoadTestSettings settings = new LoadTestSettings();
+        System.out.println("Load test: " + settings);
+
+        CityLoadTest loadTest = new CityLoadTest(settings);
+        loadTest.seed();
+        long elapsedNanos = loadTest.run();
+        loadTest.report(elapsedNanos, System.out);
+        loadTest.writeHistograms(Paths.get("target", "load-test", settings.label));
+    }
+
+    void seed() throws IOException, InterruptedException {
+
+        StringBuilder csv = new StringBuilder("name,state\n");
+        String[] states = {"AC", "AL", "AM", "BA", "MG", "PR", "RJ", "RS", "SC", "SP"};
+        for (int i = 0; i < settings.seedRows; i++) {
+            csv.append("Seed ").append(i).append(',').append(states[i % states.length]).append('\n');
+        }
+
+        send(HttpRequest.newBuilder(uri(CITIES_PATH + "/bulk"))
+                .header("Content-Type", "text/csv")
+                .POST(HttpRequest.BodyPublishers.ofString(csv.toString())));
+
+        HttpResponse<String> cities = send(HttpRequest.newBuilder(uri(CITIES_PATH)).GET());
+        seededCities.addAll(objectMapper.readValue(cities.body(), new TypeReference<List<Map<String, Object>>>() {
+        }));
+
+        if (seededCities.isEmpty()) {
+            throw new IllegalStateException("No cities available to read after seeding");
+        }
+        System.out.println("Seeded, " + seededCities.size() + " cities available");
+    }
+
+    long run() {
+
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / settings.rate;
+        long start = System.nanoTime();
+        long warmupEnd = start + settings.warmup.toNanos();
+        long end = warmupEnd + settings.duration.toNanos();
+
+        for (long scheduled = start; scheduled < end; scheduled += intervalNanos) {
+
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            Endpoint endpoint = weightedEndpoints[ThreadLocalRandom.current().nextInt(weightedEndpoints.length)];
+            boolean measured = scheduled >= warmupEnd;
+
+            if (inFlight.get() >= settings.maxInFlight) {
+                if (measured) {
+                    stats.get(endpoint).recordDropped();
+                }
+                continue;
+            }
+            fire(endpoint, scheduled, measured);
+        }
+
+        // Let outstanding requests finish so their latency is part of the result
+        long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        return end - warmupEnd;
+    }
+
+    private void fire(Endpoint endpoint, long scheduled, boolean measured) {
+
+        Long deletedId = null;
+        if (endpoint == Endpoint.DELETE) {
+            deletedId = createdIds.poll();
+            if (deletedId == null) {
+                // Nothing created yet; create instead so the load keeps its rate
+                endpoint = Endpoint.CREATE;
+            }
+        }
+
+        Endpoint issued = endpoint;
+        inFlight.incrementAndGet();
+
+        CompletableFuture<HttpResponse<String>> response = httpClient.sendAsync(
+                request(issued, deletedId), HttpResponse.BodyHandlers.ofString());
+
+        response.whenComplete((result, failure) -> {
+            inFlight.decrementAndGet();
+            long latency = System.nanoTime() - scheduled;
+            boolean failed = failure != null || result.statusCode() >= 400;
+
+            if (!failed && issued == Endpoint.CREATE) {
+                rememberCreatedId(result.body());
+            }
+            if (measured) {
+                stats.get(issued).record(latency, failed);
+            }
+        });
+    }
+
+    private HttpRequest request(Endpoint endpoint, Long deletedId) {
+
+        Map<String, Object> city = seededCities.get(ThreadLocalRandom.current().nextInt(seededCities.size()));
+
+        switch (endpoint) {
+            case LIST:
+                return HttpRequest.newBuilder(uri(CITIES_PATH)).GET().build();
+            case BY_ID:
+                return HttpRequest.newBuilder(uri(CITIES_PATH + "/" + city.get("id"))).GET().build();
+            case BY_NAME:
+                return HttpRequest.newBuilder(uri(CITIES_PATH + "/name/"
+                        + URLEncoder.encode((String) city.get("name"), StandardCharsets.UTF_8).replace("+", "%20")))
+                        .GET()
+                        .build();
+            case CREATE:
+                return jsonRequest(CITIES_PATH, "POST", String.format(
+                        "{\"name\":\"Load %d\",\"state\":\"SP\"}", createdCount.incrementAndGet()));
+            case UPDATE:
+                // Same name and state, so reads by name keep finding the city
+                return jsonRequest(CITIES_PATH + "/" + city.get("id"), "PUT", String.format(
+                        "{\"id\":%s,\"name\":\"%s\",\"state\":\"%s\"}", city.get("id"), city.get("name"), city.get("state")));
+            case DELETE:
+                return HttpRequest.newBuilder(uri(CITIES_PATH + "/" + deletedId)).DELETE().build();
+            default:
+                throw new IllegalArgumentException("Unsupported endpoint " + endpoint);
+        }
+    }
+
+    private HttpRequest jsonRequest(String path, String method, String body) {
+        return HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private void rememberCreatedId(String body) {
+
+        int start = body.indexOf(CREATED_PREFIX);
+        if (start < 0) {
+            return;
+        }
+        int from = start + CREATED_PREFIX.length();
+        int to = from;
+        while (to < body.length() && Character.isDigit(body.charAt(to))) {
+            to++;
+        }
+        if (to > from) {
+            createdIds.add(Long.parseLong(body.substring(from, to)));
+        }
+    }
+
+    void report(long elapsedNanos, PrintStream out) {
+
+        double seconds = elapsedNanos / 1e9;
+        long total = 0;
+
+        out.println();
+        out.printf("%-18s %9s %7s %7s %9s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "dropped", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+
+        for (Endpoint endpoint : Endpoint.values()) {
+            EndpointStats endpointStats = stats.get(endpoint);
+            Histogram latencies = endpointStats.getLatencies();
+            long count = latencies.getTotalCount();
+            if (count == 0 && endpointStats.getDropped() == 0) {
+                continue;
+            }
+            total += count;
+            out.printf("%-18s %9d %7d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    endpoint.getLabel(), count, endpointStats.getErrors(), endpointStats.getDropped(), count / seconds,
+                    millis(latencies.getValueAtPercentile(50)), millis(latencies.getValueAtPercentile(90)),
+                    millis(latencies.getValueAtPercentile(99)), millis(latencies.getValueAtPercentile(99.9)),
+                    millis(latencies.getMaxValue()));
+        }
+
+        out.printf("%nThroughput: %.1f req/s (target %d req/s)%n", total / seconds, settings.rate);
+    }
+
+    void writeHistograms(Path directory) throws IOException {
+
+        Files.createDirectories(directory);
+        for (Endpoint endpoint : Endpoint.values()) {
+            Histogram latencies = stats.get(endpoint).getLatencies();
+            if (latencies.getTotalCount() == 0) {
+                continue;
+            }
+            // Percentile distributions in the .hgrm format understood by the HdrHistogram plotter
+            try (PrintStream out = new PrintStream(
+                    Files.newOutputStream(directory.resolve(endpoint.getKey() + ".hgrm")), false, "UTF-8")) {
+                latencies.outputPercentileDistribution(out, 1000.0);
+            }
+        }
+        System.out.println("Histograms written to " + directory.toAbsolutePath());
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+
+        HttpResponse<String> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 400) {
+            throw new IllegalStateException(request.build().uri() + " answered " + response.statusCode());
+        }
+        return response;
+    }
+
+    private URI uri(String path) {
+        return URI.create(settings.baseUrl + path);
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.cityapi.loadtest;
+
+/**
+ * Requests the load test can issue, keyed by the name used in {@code load.mix}.
+ */
+enum Endpoint {
+    LIST("list", "GET /"),
+    BY_ID("id", "GET /{id}"),
+    BY_NAME("name", "GET /name/{name}"),
+    CREATE("create", "POST /"),
+    UPDATE("update", "PUT /{id}"),
+    DELETE("delete", "DELETE /{id}");
+
+    private final String key;
+
+    private final String label;
+
+    Endpoint(String key, String label) {
+        this.key = key;
+        this.label = label;
+    }
+
+    String getKey() {
+        return key;
+    }
+
+    String getLabel() {
+        return label;
+    }
+
+    static Endpoint fromKey(String key) {
+        for (Endpoint endpoint : values()) {
+            if (endpoint.key.equalsIgnoreCase(key)) {
+                return endpoint;
+            }
+        }
+        throw new IllegalArgumentException("Unknown endpoint in load.mix: " + key);
+    }
+}
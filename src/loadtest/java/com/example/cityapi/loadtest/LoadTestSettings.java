@@ -0,0 +1,56 @@
+package com.example.cityapi.loadtest;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Load test configuration, read from system properties so every value can be given on the
+ * Maven command line ({@code -Dload.rate=2000}).
+ */
+final class LoadTestSettings {
+
+    final String baseUrl = System.getProperty("load.base-url", "http://localhost:8080");
+
+    /** Requests started per second, whatever the server's response time (open loop). */
+    final int rate = Integer.getInteger("load.rate", 500);
+
+    final Duration duration = Duration.parse(System.getProperty("load.duration", "PT60S"));
+
+    /** Responses to requests scheduled in this first period are not recorded. */
+    final Duration warmup = Duration.parse(System.getProperty("load.warmup", "PT10S"));
+
+    /** Cities imported before the run; reads and updates target them. */
+    final int seedRows = Integer.getInteger("load.seed-rows", 5000);
+
+    /** Requests beyond this many outstanding are counted as dropped instead of queued. */
+    final int maxInFlight = Integer.getInteger("load.max-in-flight", 10000);
+
+    /** Names the result directory, e.g. the configuration being compared. */
+    final String label = System.getProperty("load.label", "default");
+
+    final Map<Endpoint, Integer> mix = parseMix(
+            System.getProperty("load.mix", "list:5,id:40,name:35,create:10,update:5,delete:5"));
+
+    private static Map<Endpoint, Integer> parseMix(String mix) {
+
+        Map<Endpoint, Integer> weights = new EnumMap<>(Endpoint.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected endpoint:weight in load.mix but got " + entry);
+            }
+            weights.put(Endpoint.fromKey(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+        }
+        if (weights.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("load.mix needs at least one positive weight");
+        }
+        return weights;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s at %d req/s for %s (warm-up %s), %d seeded cities, mix %s",
+                baseUrl, rate, duration, warmup, seedRows, mix);
+    }
+}
@@ -1,25 +1,32 @@
 package com.example.cityapi;
 
-import io.micrometer.core.instrument.MeterRegistry;
-import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.context.annotation.Bean;
+import org.springframework.context.ConfigurableApplicationContext;
 
 @Slf4j
 @SpringBootApplication
 @EnableCaching
 public class CityApiApplication {
 
-	@Bean
-	public MeterRegistry registry() {
-		return new SimpleMeterRegistry();
-	}
+	// Startup steps kept for the actuator startup endpoint
+	private static final int STARTUP_STEPS = 2048;
+
+	// Set by the cds Maven profile: start once, then exit so the JVM dumps the class data archive
+	private static final String CDS_TRAINING = "city.cds.training";
 
 	public static void main(String[] args) {
-		SpringApplication.run(CityApiApplication.class, args);
+		SpringApplication application = new SpringApplication(CityApiApplication.class);
+		application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEPS));
+
+		ConfigurableApplicationContext context = application.run(args);
 		log.info("Spring Boot City API application has been loaded");
+
+		if (Boolean.getBoolean(CDS_TRAINING)) {
+			System.exit(SpringApplication.exit(context));
+		}
 	}
 }
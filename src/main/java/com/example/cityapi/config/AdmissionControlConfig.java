@@ -0,0 +1,59 @@
+package com.example.cityapi.config;
+
+import com.example.cityapi.web.AdmissionControlFilter;
+import com.example.cityapi.web.AdmissionControlProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Puts {@link AdmissionControlFilter} in front of the city API when
+ * {@code city.http.admission.enabled=true}.
+ */
+@Slf4j
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(AdmissionControlProperties.class)
+@ConditionalOnProperty(name = "city.http.admission.enabled", havingValue = "true")
+public class AdmissionControlConfig {
+
+    static final String CITY_API_PATTERN = "/api/v1/cities/*";
+
+    @Bean
+    public FilterRegistrationBean<AdmissionControlFilter> admissionControlFilter(
+            AdmissionControlProperties properties, ObjectProvider<DataSource> dataSource, MeterRegistry registry) {
+
+        int maxConcurrent = properties.getMaxConcurrent() > 0
+                ? properties.getMaxConcurrent()
+                : 2 * poolSize(dataSource.getIfAvailable());
+
+        FilterRegistrationBean<AdmissionControlFilter> registration = new FilterRegistrationBean<>(
+                new AdmissionControlFilter(properties, maxConcurrent, registry));
+        registration.addUrlPatterns(CITY_API_PATTERN);
+        return registration;
+    }
+
+    /**
+     * The Hikari maximum pool size, also behind the proxies Sleuth wraps around the data
+     * source, or the size {@link HikariPoolSizeConfig} would pick for this machine.
+     */
+    private static int poolSize(DataSource dataSource) {
+
+        try {
+            if (dataSource != null && dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+            }
+        } catch (SQLException e) {
+            log.warn("Could not read the connection pool size", e);
+        }
+        return HikariPoolSizeConfig.poolSize(Runtime.getRuntime().availableProcessors(), 1);
+    }
+}
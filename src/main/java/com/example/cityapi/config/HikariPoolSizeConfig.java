@@ -0,0 +1,51 @@
+package com.example.cityapi.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Sizes the Hikari pool from the machine instead of a fixed number, using the usual
+ * {@code cores * 2 + effective spindles} rule: enough connections to keep the database busy
+ * while some wait on I/O, without queueing work inside it. An explicit
+ * {@code spring.datasource.hikari.maximum-pool-size} still wins.
+ */
+@Slf4j
+@Configuration(proxyBeanMethods = false)
+public class HikariPoolSizeConfig {
+
+    static final String MAXIMUM_POOL_SIZE = "spring.datasource.hikari.maximum-pool-size";
+
+    static final String SPINDLE_COUNT = "city.datasource.effective-spindle-count";
+
+    @Bean
+    public static BeanPostProcessor hikariPoolSizer(Environment environment) {
+
+        return new BeanPostProcessor() {
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+
+                if (!(bean instanceof HikariDataSource)
+                        || Binder.get(environment).bind(MAXIMUM_POOL_SIZE, Integer.class).isBound()) {
+                    return bean;
+                }
+
+                int cores = Runtime.getRuntime().availableProcessors();
+                int poolSize = poolSize(cores, environment.getProperty(SPINDLE_COUNT, Integer.class, 1));
+
+                ((HikariDataSource) bean).setMaximumPoolSize(poolSize);
+                log.info("Hikari maximum pool size set to {} for {} cores", poolSize, cores);
+                return bean;
+            }
+        };
+    }
+
+    static int poolSize(int cores, int spindles) {
+        return cores * 2 + Math.max(spindles, 0);
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.cityapi.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import javax.sql.DataSource;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs Tomcat request processing and the application task executor (used by MVC async
+ * requests such as the streamed city list) on one virtual thread per task.
+ * <p>
+ * Enabled with {@code city.threads.virtual=true}; needs a Java 21 runtime, see the
+ * {@code virtual-threads} Maven profile. The executor is looked up reflectively so the
+ * default Java 11 build still compiles. Database concurrency stays bounded by the Hikari
+ * pool: waiting for a connection parks the virtual thread, while JDBC driver code that
+ * runs inside {@code synchronized} pins its carrier for as long as the connection is used.
+ */
+@Slf4j
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "city.threads.virtual", havingValue = "true")
+public class VirtualThreadConfig {
+
+    private static final String NEW_VIRTUAL_THREAD_EXECUTOR = "newVirtualThreadPerTaskExecutor";
+
+    private static final String CARRIER_PARALLELISM = "jdk.virtualThreadScheduler.parallelism";
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+
+        log.info("Tomcat requests will run on virtual threads");
+
+        return protocolHandler -> protocolHandler.setExecutor(newVirtualThreadPerTaskExecutor());
+    }
+
+    @Bean(name = "applicationTaskExecutor")
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(newVirtualThreadPerTaskExecutor());
+    }
+
+    /**
+     * Every connection in use may pin a carrier thread, so a pool larger than the carrier
+     * pool can leave no carrier free to run the other virtual threads.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void checkConnectionPoolSize(ApplicationReadyEvent event) {
+
+        DataSource dataSource = event.getApplicationContext().getBean(DataSource.class);
+        if (!(dataSource instanceof HikariDataSource)) {
+            return;
+        }
+
+        int poolSize = ((HikariDataSource) dataSource).getMaximumPoolSize();
+        int carriers = Integer.getInteger(CARRIER_PARALLELISM, Runtime.getRuntime().availableProcessors());
+        if (poolSize >= carriers) {
+            log.warn("Hikari pool size {} is not below the {} virtual thread carriers; raise {} to keep carriers "
+                    + "free while JDBC calls are pinned", poolSize, carriers, CARRIER_PARALLELISM);
+        } else {
+            log.info("Hikari pool size {} with {} virtual thread carriers", poolSize, carriers);
+        }
+    }
+
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+
+        try {
+            return (ExecutorService) Executors.class.getMethod(NEW_VIRTUAL_THREAD_EXECUTOR).invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("city.threads.virtual=true requires a Java 21 runtime, running on "
+                    + Runtime.version(), e);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create a virtual thread executor", e);
+        }
+    }
+}
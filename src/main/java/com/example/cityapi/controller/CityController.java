@@ -1,91 +1,324 @@
 package com.example.cityapi.controller;
 
 import com.example.cityapi.dto.request.CityDTO;
+import com.example.cityapi.dto.request.CityLookupDTO;
+import com.example.cityapi.dto.response.CityDeltaResponseDTO;
+import com.example.cityapi.dto.response.CityLookupResponseDTO;
+import com.example.cityapi.dto.response.CityPageResponseDTO;
 import com.example.cityapi.dto.response.MessageResponseDTO;
+import com.example.cityapi.enums.State;
 import com.example.cityapi.exception.CityNotFoundException;
+import com.example.cityapi.exception.CityVersionMismatchException;
 import com.example.cityapi.service.CityService;
-import io.micrometer.core.instrument.Counter;
-import io.micrometer.core.instrument.MeterRegistry;
-import io.micrometer.core.instrument.Timer;
+import com.example.cityapi.web.CacheControlProperties;
+import com.example.cityapi.web.CityChangeStream;
+import com.example.cityapi.web.CityListBodyCache;
+import com.example.cityapi.web.CityListFormat;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
 
 @RestController
 @RequestMapping("/api/v1/cities")
 public class CityController {
 
+    private static final Pattern ZERO_QUALITY = Pattern.compile("q\\s*=\\s*0(\\.0*)?");
+
+    private static final Long NO_VERSION = -1L;
+
+    private static final String LAST_EVENT_ID = "Last-Event-ID";
+
+    private static final ResponseEntity<byte[]> CITY_NOT_FOUND = ResponseEntity.status(HttpStatus.NOT_FOUND)
+            .contentType(MediaType.APPLICATION_JSON)
+            .body("{\"status\":404,\"error\":\"Not Found\"}".getBytes(StandardCharsets.UTF_8));
+
     @Autowired
     private CityService cityService;
 
     @Autowired
-    private MeterRegistry registry;
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CacheControlProperties cacheControlProperties;
+
+    @Autowired
+    private CityListBodyCache cityListBodyCache;
 
-    Timer postCityTimer;
-    Counter postCityCounter;
-    Timer getCitiesTimer;
-    Counter getCitiesCounter;
+    @Autowired
+    private CityChangeStream cityChangeStream;
 
-    public CityController(CityService cityService, MeterRegistry registry) {
+    public CityController(CityService cityService, ObjectMapper objectMapper,
+                          CacheControlProperties cacheControlProperties, CityListBodyCache cityListBodyCache,
+                          CityChangeStream cityChangeStream) {
         this.cityService = cityService;
-        this.registry = registry;
-        this.postCityTimer = Timer.builder("cities_post_timer").register(registry);
-        this.postCityCounter = Counter.builder("cities_post_counter").register(registry);
-        this.getCitiesTimer = Timer.builder("cities_get_all_timer").register(registry);
-        this.getCitiesCounter = Counter.builder("cities_get_all_counter").register(registry);
+        this.objectMapper = objectMapper;
+        this.cacheControlProperties = cacheControlProperties;
+        this.cityListBodyCache = cityListBodyCache;
+        this.cityChangeStream = cityChangeStream;
     }
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public MessageResponseDTO createNewCity(@RequestBody @Valid CityDTO cityDTO) {
 
-        return postCityTimer.record(()  -> {
-                var messageResponseDTO = cityService.createNewCity(cityDTO);
-                if (messageResponseDTO.getMessage().contains("City successfully created")) {
-                    postCityCounter.increment();
-                }
-                return messageResponseDTO;
-        });
+        return cityService.createNewCity(cityDTO);
     }
 
+    /**
+     * The full list as JSON, or as Smile or CBOR when {@code Accept} asks for them. With
+     * {@code columnar=true} the list is sent as one array per field.
+     */
     @GetMapping
-    public List<CityDTO> getAllCities() {
+    public ResponseEntity<byte[]> getAllCities(WebRequest request,
+                                               @RequestHeader(value = HttpHeaders.ACCEPT, required = false)
+                                                       String accept,
+                                               @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+                                                       String acceptEncoding,
+                                               @RequestParam(value = "columnar", defaultValue = "false")
+                                                       boolean columnar) {
+
+        CityListFormat format = CityListFormat.negotiate(accept);
+        // Only the default JSON rows are kept gzipped; the other encodings are compact already
+        boolean gzip = format == CityListFormat.JSON && !columnar && acceptsGzip(acceptEncoding);
+        if (request.checkNotModified(representationTag(cityService.getCitiesTag(), format, columnar, gzip))) {
+            return null;
+        }
+
+        // Pre-encoded bytes are written as they are: no Jackson and no compression per request
+        CityListBodyCache.EncodedBody body = cityListBodyCache.get();
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(representationTag(body.getTag(), format, columnar, gzip))
+                .cacheControl(cacheControlProperties.toCacheControl())
+                .contentType(format.getMediaType())
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(gzip ? body.getGzip() : cityListBodyCache.get(body, format, columnar));
+    }
+
+    @GetMapping(params = {"state", "!limit"})
+    public List<CityDTO> getCitiesByState(@RequestParam("state") State state) {
+
+        return cityService.getCitiesByState(state);
+    }
+
+    @GetMapping(params = {"since", "!state", "!limit"})
+    public CityDeltaResponseDTO getCitiesChangedSince(@RequestParam("since") long since) {
+
+        return cityService.getCitiesChangedSince(since);
+    }
+
+    @GetMapping(params = "limit")
+    public CityPageResponseDTO getCitiesPage(@RequestParam("limit") int limit,
+                                             @RequestParam(value = "after", required = false) Long after) {
+
+        return cityService.getCitiesPage(after, limit);
+    }
+
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamAllCities() {
+
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                cityService.streamAllCities(cityDTO -> {
+                    try {
+                        generator.writeObject(cityDTO);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    /**
+     * Create, update and delete events as Server-Sent Events. A reconnecting client resumes
+     * after its {@code Last-Event-ID}; {@code since} does the same for the first connection.
+     */
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(value = "since", required = false) Long since,
+                                    @RequestHeader(value = LAST_EVENT_ID, required = false) Long lastEventId) {
+
+        return cityChangeStream.subscribe(lastEventId != null ? lastEventId : since);
+    }
+
+    @PostMapping("/lookup")
+    public CityLookupResponseDTO lookupCities(@RequestBody @Valid CityLookupDTO lookup) {
 
-        return getCitiesTimer.record(() -> {
-            getCitiesCounter.increment();
-            return cityService.getAllCities();
-        });
+        return cityService.lookupCities(lookup);
+    }
+
+    @GetMapping("/search")
+    public List<CityDTO> searchCitiesByName(@RequestParam("q") String query,
+                                            @RequestParam(value = "limit", defaultValue = "10") int limit,
+                                            @RequestParam(value = "maxEdits", defaultValue = "0") int maxEdits) {
+
+        return cityService.searchCitiesByName(query, limit, maxEdits);
     }
 
     @GetMapping("/{id}")
-    @ResponseStatus(HttpStatus.OK)
-    public CityDTO getCityById(@PathVariable(value = "id") Long id) throws CityNotFoundException {
+    public ResponseEntity<CityDTO> getCityById(@PathVariable(value = "id") Long id, WebRequest request)
+            throws CityNotFoundException {
 
-        return cityService.getCityById(id);
+        // The snapshot answers revalidation of a city it knows without going to the data layer
+        Optional<CityDTO> known = cityService.findKnownCityById(id);
+        if (known.isPresent() && request.checkNotModified(entityTag(known.get()))) {
+            return null;
+        }
+
+        CityDTO city = cityService.getCityById(id);
+        String eTag = entityTag(city);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(cacheControlProperties.toCacheControl())
+                .body(city);
     }
 
     @GetMapping("/name/{name}")
-    @ResponseStatus(HttpStatus.OK)
-    public CityDTO getCityByName(@PathVariable(value = "name") String name) throws CityNotFoundException {
+    public ResponseEntity<CityDTO> getCityByName(@PathVariable(value = "name") String name, WebRequest request)
+            throws CityNotFoundException {
 
-        return cityService.getCityByName(name);
+        Optional<CityDTO> known = cityService.findKnownCityByName(name);
+        if (known.isPresent() && request.checkNotModified(entityTag(known.get()))) {
+            return null;
+        }
+
+        CityDTO city = cityService.getCityByName(name);
+        String eTag = entityTag(city);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(cacheControlProperties.toCacheControl())
+                .body(city);
     }
 
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
-    public MessageResponseDTO deleteCityById(@PathVariable("id") Long id) throws CityNotFoundException {
+    public MessageResponseDTO deleteCityById(@PathVariable("id") Long id,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                                     String ifMatch)
+            throws CityNotFoundException, CityVersionMismatchException {
 
-        return cityService.deleteCityById(id);
+        return cityService.deleteCityById(id, expectedVersion(id, ifMatch));
     }
 
     @PutMapping("/{id}")
     @ResponseStatus(HttpStatus.OK)
-    public MessageResponseDTO updateCityById(@PathVariable("id") Long id, @Valid @RequestBody CityDTO cityDTO)
-            throws CityNotFoundException {
+    public MessageResponseDTO updateCityById(@PathVariable("id") Long id, @Valid @RequestBody CityDTO cityDTO,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                                     String ifMatch)
+            throws CityNotFoundException, CityVersionMismatchException {
+
+        return cityService.updateCityById(id, cityDTO, expectedVersion(id, ifMatch));
+    }
+
+    /**
+     * Answers misses with a body built once, instead of forwarding to the error page and
+     * formatting the exception message on every probe for an unknown id or name.
+     */
+    @ExceptionHandler(CityNotFoundException.class)
+    public ResponseEntity<byte[]> handleCityNotFound() {
+
+        return CITY_NOT_FOUND;
+    }
+
+    /**
+     * The entity tag of a single city, {@code "<id>-<version>"}, built from the row's JPA
+     * version. The same value is accepted back in {@code If-Match}, so a client can update or
+     * delete exactly the representation it last read. The id keeps tags distinct when a name
+     * moves to another city.
+     */
+    private static String entityTag(CityDTO city) {
+        return city.getId() + "-" + (city.getVersion() == null ? 0 : city.getVersion());
+    }
+
+    /**
+     * Reads the city {@code version} a client sent in {@code If-Match}: the entity tag of a
+     * GET, e.g. {@code "7-3"}, or a bare version such as {@code "3"}. Without the header, or
+     * with {@code *}, the write is unconditional. A tag of another city, or a value that is
+     * not a version, can never match.
+     */
+    private static Long expectedVersion(Long id, String ifMatch) {
+
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        int separator = tag.lastIndexOf('-');
+        if (separator > 0) {
+            if (!tag.substring(0, separator).equals(String.valueOf(id))) {
+                return NO_VERSION;
+            }
+            tag = tag.substring(separator + 1);
+        }
+        try {
+            return Long.parseLong(tag);
+        } catch (NumberFormatException e) {
+            return NO_VERSION;
+        }
+    }
+
+    /**
+     * Each encoding and layout of the list gets its own entity tag, so a cache holding several
+     * of them never revalidates one with the tag of another.
+     */
+    /** Strong tags must differ per content-coding, so the gzipped bytes get a tag of their own. */
+    private static String representationTag(String tag, CityListFormat format, boolean columnar, boolean gzip) {
+
+        if (format == CityListFormat.JSON && !columnar) {
+            return gzip ? tag + "-gzip" : tag;
+        }
+        return tag + "-" + format.name().toLowerCase() + (columnar ? "-columnar" : "");
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
 
-        return cityService.updateCityById(id, cityDTO);
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !ZERO_QUALITY.matcher(parts[1].trim()).matches();
+            }
+        }
+        return false;
     }
-}
\ No newline at end of file
+}
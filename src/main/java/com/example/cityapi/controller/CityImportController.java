@@ -0,0 +1,44 @@
+package com.example.cityapi.controller;
+
+import com.example.cityapi.dto.response.BulkImportResponseDTO;
+import com.example.cityapi.service.CityImportService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/api/v1/cities/bulk")
+public class CityImportController {
+
+    private static final String TEXT_CSV_VALUE = "text/csv";
+
+    private final CityImportService cityImportService;
+
+    public CityImportController(CityImportService cityImportService) {
+        this.cityImportService = cityImportService;
+    }
+
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.CREATED)
+    public BulkImportResponseDTO importJsonArray(InputStream body) throws IOException {
+
+        return cityImportService.importJsonArray(body);
+    }
+
+    @PostMapping(consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @ResponseStatus(HttpStatus.CREATED)
+    public BulkImportResponseDTO importNdjson(InputStream body) throws IOException {
+
+        return cityImportService.importNdjson(body);
+    }
+
+    @PostMapping(consumes = TEXT_CSV_VALUE)
+    @ResponseStatus(HttpStatus.CREATED)
+    public BulkImportResponseDTO importCsv(InputStream body) throws IOException {
+
+        return cityImportService.importCsv(body);
+    }
+}
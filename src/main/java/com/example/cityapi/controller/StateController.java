@@ -0,0 +1,35 @@
+package com.example.cityapi.controller;
+
+import com.example.cityapi.dto.request.CityDTO;
+import com.example.cityapi.dto.response.StateStatisticsResponseDTO;
+import com.example.cityapi.enums.State;
+import com.example.cityapi.service.CityService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/states")
+public class StateController {
+
+    private final CityService cityService;
+
+    public StateController(CityService cityService) {
+        this.cityService = cityService;
+    }
+
+    @GetMapping("/{uf}/cities")
+    public List<CityDTO> getCitiesByState(@PathVariable("uf") State state) {
+
+        return cityService.getCitiesByState(state);
+    }
+
+    @GetMapping("/stats")
+    public StateStatisticsResponseDTO getStateStatistics() {
+
+        return cityService.getStateStatistics();
+    }
+}
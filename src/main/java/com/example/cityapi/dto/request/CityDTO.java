@@ -24,4 +24,6 @@ public class CityDTO {
 
     @Enumerated(EnumType.STRING)
     private State state;
+
+    private Long version;
 }
@@ -0,0 +1,23 @@
+package com.example.cityapi.dto.request;
+
+import com.example.cityapi.service.CityService;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.Size;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CityLookupDTO {
+
+    @Size(max = CityService.MAX_LOOKUP_KEYS)
+    private List<Long> ids;
+
+    @Size(max = CityService.MAX_LOOKUP_KEYS)
+    private List<String> names;
+}
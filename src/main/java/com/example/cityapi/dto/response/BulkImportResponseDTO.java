@@ -0,0 +1,23 @@
+package com.example.cityapi.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class BulkImportResponseDTO {
+
+    private int received;
+
+    private int inserted;
+
+    private int rejected;
+
+    /** The first rejected records and why, so the input can be fixed; {@code rejected} counts them all. */
+    private List<ImportRejectionDTO> rejections;
+
+    private List<ImportBatchResultDTO> batches;
+
+}
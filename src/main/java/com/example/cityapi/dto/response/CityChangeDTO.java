@@ -0,0 +1,25 @@
+package com.example.cityapi.dto.response;
+
+import com.example.cityapi.dto.request.CityDTO;
+import com.example.cityapi.event.CityChangedEvent;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * One entry of the change feed. {@code city} is the city after a create or update; a delete
+ * only carries the {@code id}, and a {@code RELOADED} change means the whole list must be
+ * fetched again.
+ */
+@Data
+@Builder
+public class CityChangeDTO {
+
+    private long sequence;
+
+    private CityChangedEvent.Type type;
+
+    private Long id;
+
+    private CityDTO city;
+
+}
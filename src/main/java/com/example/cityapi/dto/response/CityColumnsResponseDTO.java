@@ -0,0 +1,25 @@
+package com.example.cityapi.dto.response;
+
+import com.example.cityapi.enums.State;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * The city list as one array per field, in the same order, so field names appear once
+ * instead of once per city.
+ */
+@Data
+@Builder
+public class CityColumnsResponseDTO {
+
+    private List<Long> ids;
+
+    private List<String> names;
+
+    private List<State> states;
+
+    private List<Long> versions;
+
+}
@@ -0,0 +1,23 @@
+package com.example.cityapi.dto.response;
+
+import com.example.cityapi.dto.request.CityDTO;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Cities created or updated and ids deleted after the requested version. {@code version} is
+ * what the client sends as {@code since} on its next sync.
+ */
+@Data
+@Builder
+public class CityDeltaResponseDTO {
+
+    private long version;
+
+    private List<CityDTO> changed;
+
+    private List<Long> deleted;
+
+}
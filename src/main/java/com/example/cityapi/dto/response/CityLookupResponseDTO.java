@@ -0,0 +1,23 @@
+package com.example.cityapi.dto.response;
+
+import com.example.cityapi.dto.request.CityDTO;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * The cities found for a batch lookup, each once and in request order, and the ids and names
+ * that matched no city.
+ */
+@Data
+@Builder
+public class CityLookupResponseDTO {
+
+    private List<CityDTO> cities;
+
+    private List<Long> missingIds;
+
+    private List<String> missingNames;
+
+}
@@ -0,0 +1,19 @@
+package com.example.cityapi.dto.response;
+
+import com.example.cityapi.dto.request.CityDTO;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class CityPageResponseDTO {
+
+    private List<CityDTO> content;
+
+    private int limit;
+
+    private Long nextCursor;
+
+}
@@ -0,0 +1,16 @@
+package com.example.cityapi.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class ImportBatchResultDTO {
+
+    private int batch;
+
+    private int size;
+
+    private int inserted;
+
+}
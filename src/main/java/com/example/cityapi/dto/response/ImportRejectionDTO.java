@@ -0,0 +1,15 @@
+package com.example.cityapi.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class ImportRejectionDTO {
+
+    /** Position of the record in the input, starting at 1 and not counting a CSV header. */
+    private int record;
+
+    private String reason;
+
+}
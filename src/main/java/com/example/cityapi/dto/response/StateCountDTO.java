@@ -0,0 +1,17 @@
+package com.example.cityapi.dto.response;
+
+import com.example.cityapi.enums.State;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class StateCountDTO {
+
+    private State state;
+
+    private String name;
+
+    private long cities;
+
+}
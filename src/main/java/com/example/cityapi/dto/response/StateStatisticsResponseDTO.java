@@ -0,0 +1,16 @@
+package com.example.cityapi.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class StateStatisticsResponseDTO {
+
+    private long total;
+
+    private List<StateCountDTO> states;
+
+}
@@ -0,0 +1,47 @@
+package com.example.cityapi.event;
+
+import com.example.cityapi.dto.request.CityDTO;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published by the service layer after a write has been committed. {@code before} and
+ * {@code after} hold the city as it was and as it is now; a {@link Type#RELOADED} event
+ * carries neither and tells listeners to rebuild from the database.
+ */
+@Getter
+@ToString
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class CityChangedEvent {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED,
+        RELOADED
+    }
+
+    private final Type type;
+
+    private final CityDTO before;
+
+    private final CityDTO after;
+
+    public static CityChangedEvent created(CityDTO after) {
+        return new CityChangedEvent(Type.CREATED, null, after);
+    }
+
+    public static CityChangedEvent updated(CityDTO before, CityDTO after) {
+        return new CityChangedEvent(Type.UPDATED, before, after);
+    }
+
+    public static CityChangedEvent deleted(CityDTO before) {
+        return new CityChangedEvent(Type.DELETED, before, null);
+    }
+
+    public static CityChangedEvent reloaded() {
+        return new CityChangedEvent(Type.RELOADED, null, null);
+    }
+}
@@ -1,12 +1,40 @@
 package com.example.cityapi.exception;
 
+import com.example.cityapi.model.City;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
+/**
+ * A lookup that matched no city. Misses are routine (clients probing ids, misspelled names),
+ * so the exception fills in no stack trace and the message is only formatted when read.
+ */
 @ResponseStatus(HttpStatus.NOT_FOUND)
 public class CityNotFoundException extends Exception {
 
+    private final String field;
+
+    private final Object key;
+
     public CityNotFoundException(String message) {
-        super(message);
+        this(message, null, null);
+    }
+
+    private CityNotFoundException(String message, String field, Object key) {
+        super(message, null, false, false);
+        this.field = field;
+        this.key = key;
+    }
+
+    public static CityNotFoundException forId(Long id) {
+        return new CityNotFoundException(null, "ID", id);
+    }
+
+    public static CityNotFoundException forName(String name) {
+        return new CityNotFoundException(null, "name", name);
+    }
+
+    @Override
+    public String getMessage() {
+        return field == null ? super.getMessage() : City.class.getName() + " not found with " + field + " " + key;
     }
 }
@@ -0,0 +1,16 @@
+package com.example.cityapi.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * An unconditional update that kept losing to concurrent writes of the same city. Unlike its
+ * parent it is not about a version the client sent, so it answers 409 instead of 412.
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class CityUpdateConflictException extends CityVersionMismatchException {
+
+    public CityUpdateConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.cityapi.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+public class CityVersionMismatchException extends Exception {
+
+    public CityVersionMismatchException(String message) {
+        super(message);
+    }
+}
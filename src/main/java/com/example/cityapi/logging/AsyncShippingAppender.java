@@ -0,0 +1,213 @@
+package com.example.cityapi.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.spi.AppenderAttachable;
+import ch.qos.logback.core.spi.AppenderAttachableImpl;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Metrics;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hands events to the attached appenders on a single background thread, so a slow target
+ * (such as the Papertrail syslog appender) never runs on a request thread. Events still reach
+ * the target one at a time: Logback appenders have no batch write, so this is a plain async
+ * appender that only differs from Logback's in never blocking and in its metrics.
+ * <p>
+ * The queue is bounded and the appender never blocks: once fewer than
+ * {@code discardingThreshold} slots are left, INFO and lower events are discarded, and when
+ * the queue is full any event is dropped. Both are counted and exported as
+ * {@code city.logging.events.dropped}. The worker takes up to {@code drainSize} events off
+ * the queue per wake-up.
+ * <p>
+ * Logback creates its appenders before the Spring context exists, so the meters go to
+ * Micrometer's global registry, which Spring Boot links to its own registries.
+ */
+public class AsyncShippingAppender extends UnsynchronizedAppenderBase<ILoggingEvent>
+        implements AppenderAttachable<ILoggingEvent> {
+
+    private static final long STOP_FLUSH_MILLIS = 1000;
+
+    private static final String DROPPED = "city.logging.events.dropped";
+
+    private final AppenderAttachableImpl<ILoggingEvent> appenders = new AppenderAttachableImpl<>();
+
+    private final LongAdder discarded = new LongAdder();
+
+    private final LongAdder queueFull = new LongAdder();
+
+    private int queueSize = 8192;
+
+    private int drainSize = 256;
+
+    private int discardingThreshold = -1;
+
+    private BlockingQueue<ILoggingEvent> queue;
+
+    private Thread worker;
+
+    private final List<Meter> meters = new ArrayList<>();
+
+    @Override
+    public void start() {
+
+        if (isStarted()) {
+            return;
+        }
+        if (!appenders.iteratorForAppenders().hasNext()) {
+            addError("No appender attached to " + getName());
+            return;
+        }
+        if (queueSize < 1 || drainSize < 1) {
+            addError("queueSize and drainSize must be positive");
+            return;
+        }
+        if (discardingThreshold < 0) {
+            discardingThreshold = queueSize / 5;
+        }
+
+        queue = new ArrayBlockingQueue<>(queueSize);
+        worker = new Thread(this::ship, "log-shipper-" + getName());
+        worker.setDaemon(true);
+        super.start();
+        worker.start();
+        registerMeters();
+    }
+
+    @Override
+    public void stop() {
+
+        if (!isStarted()) {
+            return;
+        }
+        super.stop();
+        meters.forEach(Metrics.globalRegistry::remove);
+        meters.clear();
+        worker.interrupt();
+        try {
+            worker.join(STOP_FLUSH_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<ILoggingEvent> remaining = new ArrayList<>(queue.size());
+        queue.drainTo(remaining);
+        remaining.forEach(appenders::appendLoopOnAppenders);
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+
+        if (queue.remainingCapacity() < discardingThreshold && !event.getLevel().isGreaterOrEqual(Level.WARN)) {
+            discarded.increment();
+            return;
+        }
+        // Thread name, MDC and message are captured now; the worker formats them later
+        event.prepareForDeferredProcessing();
+        if (!queue.offer(event)) {
+            queueFull.increment();
+        }
+    }
+
+    private void registerMeters() {
+
+        meters.add(FunctionCounter.builder(DROPPED, this, AsyncShippingAppender::getDiscardedCount)
+                .description("Log events dropped before reaching the appender")
+                .tags("appender", getName(), "reason", "discarded")
+                .register(Metrics.globalRegistry));
+        meters.add(FunctionCounter.builder(DROPPED, this, AsyncShippingAppender::getQueueFullCount)
+                .description("Log events dropped before reaching the appender")
+                .tags("appender", getName(), "reason", "queue_full")
+                .register(Metrics.globalRegistry));
+        meters.add(Gauge.builder("city.logging.queue.size", this, AsyncShippingAppender::getQueuedCount)
+                .description("Log events waiting to be shipped")
+                .tag("appender", getName())
+                .register(Metrics.globalRegistry));
+    }
+
+    private void ship() {
+
+        List<ILoggingEvent> drained = new ArrayList<>(drainSize);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                drained.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(drained, drainSize - 1);
+            for (ILoggingEvent event : drained) {
+                appenders.appendLoopOnAppenders(event);
+            }
+            drained.clear();
+        }
+    }
+
+    public long getDiscardedCount() {
+        return discarded.sum();
+    }
+
+    public long getQueueFullCount() {
+        return queueFull.sum();
+    }
+
+    public int getQueuedCount() {
+        return queue == null ? 0 : queue.size();
+    }
+
+    public void setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    public void setDrainSize(int drainSize) {
+        this.drainSize = drainSize;
+    }
+
+    public void setDiscardingThreshold(int discardingThreshold) {
+        this.discardingThreshold = discardingThreshold;
+    }
+
+    @Override
+    public void addAppender(Appender<ILoggingEvent> appender) {
+        appenders.addAppender(appender);
+    }
+
+    @Override
+    public Iterator<Appender<ILoggingEvent>> iteratorForAppenders() {
+        return appenders.iteratorForAppenders();
+    }
+
+    @Override
+    public Appender<ILoggingEvent> getAppender(String name) {
+        return appenders.getAppender(name);
+    }
+
+    @Override
+    public boolean isAttached(Appender<ILoggingEvent> appender) {
+        return appenders.isAttached(appender);
+    }
+
+    @Override
+    public void detachAndStopAllAppenders() {
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    public boolean detachAppender(Appender<ILoggingEvent> appender) {
+        return appenders.detachAppender(appender);
+    }
+
+    @Override
+    public boolean detachAppender(String name) {
+        return appenders.detachAppender(name);
+    }
+}
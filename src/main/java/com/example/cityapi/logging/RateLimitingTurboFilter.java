@@ -0,0 +1,101 @@
+package com.example.cityapi.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Marker;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rate limits the per-request INFO logs of the loggers under {@code loggerName}. Up to
+ * {@code maxPerSecond} events pass each second; beyond that only one in {@code sampleEvery}
+ * is kept (none when it is 0). The defaults, 100 per second and then one in 100, match
+ * {@code city.logging.request.*} in {@code application.properties}. Suppressed events are denied before the message is formatted
+ * or an event is created, and counted in {@code city.logging.events.suppressed}. WARN and
+ * ERROR always pass; {@code maxPerSecond} 0 turns the filter off. Like
+ * {@link AsyncShippingAppender}, the counter is registered in Micrometer's global registry.
+ */
+public class RateLimitingTurboFilter extends TurboFilter {
+
+    private String loggerName = "";
+
+    private int maxPerSecond = 100;
+
+    private int sampleEvery = 100;
+
+    private final AtomicLong window = new AtomicLong();
+
+    private final AtomicInteger count = new AtomicInteger();
+
+    private final LongAdder suppressed = new LongAdder();
+
+    private Meter meter;
+
+    @Override
+    public void start() {
+
+        meter = FunctionCounter.builder("city.logging.events.suppressed", this,
+                        RateLimitingTurboFilter::getSuppressedCount)
+                .description("INFO events suppressed by the log rate limit")
+                .tag("logger", loggerName)
+                .register(Metrics.globalRegistry);
+        super.start();
+    }
+
+    @Override
+    public void stop() {
+
+        super.stop();
+        if (meter != null) {
+            Metrics.globalRegistry.remove(meter);
+        }
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params,
+                              Throwable t) {
+
+        // format is null for isInfoEnabled() checks, which are not log events
+        if (maxPerSecond <= 0 || format == null || level != Level.INFO || !logger.getName().startsWith(loggerName)
+                || !level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            return FilterReply.NEUTRAL;
+        }
+
+        long second = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime());
+        long current = window.get();
+        if (second != current && window.compareAndSet(current, second)) {
+            count.set(0);
+        }
+
+        int inWindow = count.incrementAndGet();
+        if (inWindow <= maxPerSecond || (sampleEvery > 0 && (inWindow - maxPerSecond) % sampleEvery == 0)) {
+            return FilterReply.NEUTRAL;
+        }
+        suppressed.increment();
+        return FilterReply.DENY;
+    }
+
+    public long getSuppressedCount() {
+        return suppressed.sum();
+    }
+
+    public void setLoggerName(String loggerName) {
+        this.loggerName = loggerName;
+    }
+
+    public void setMaxPerSecond(int maxPerSecond) {
+        this.maxPerSecond = maxPerSecond;
+    }
+
+    public void setSampleEvery(int sampleEvery) {
+        this.sampleEvery = sampleEvery;
+    }
+}
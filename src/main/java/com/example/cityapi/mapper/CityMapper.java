@@ -4,6 +4,7 @@ import com.example.cityapi.dto.request.CityDTO;
 import com.example.cityapi.model.City;
 import org.mapstruct.InheritInverseConfiguration;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.factory.Mappers;
 
 @Mapper(componentModel = "spring")
@@ -14,5 +15,6 @@ public interface CityMapper {
     CityDTO modelToDto(City city);
 
     @InheritInverseConfiguration
+    @Mapping(target = "modifiedVersion", ignore = true)
     City dtoToModel(CityDTO cityDTO);
 }
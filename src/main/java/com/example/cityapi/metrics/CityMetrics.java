@@ -0,0 +1,141 @@
+package com.example.cityapi.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters of the service and repository layers. Every timer and summary is registered up front
+ * and looked up by enum ordinal, so recording only costs a {@link System#nanoTime()} pair: no
+ * tag lists, no registry lookups and no samples are allocated per call. Timer histograms and
+ * SLO buckets are configured under {@code management.metrics.distribution.*.city}; row counts
+ * use fixed buckets.
+ */
+@Component
+public class CityMetrics {
+
+    public static final String SERVICE_METRIC = "city.service";
+
+    public static final String QUERY_METRIC = "city.repository.query";
+
+    public static final String ROWS_METRIC = "city.repository.rows";
+
+    public static final String MAPPER_METRIC = "city.mapper";
+
+    public static final String COALESCED_METRIC = "city.service.coalesced";
+
+    /** Reads whose concurrent loads are shared, see {@code SingleFlight}. */
+    public static final Set<Operation> COALESCED_OPERATIONS =
+            EnumSet.of(Operation.GET_ALL, Operation.GET_BY_ID, Operation.GET_BY_NAME);
+
+    public enum Operation {
+        CREATE("create"),
+        GET_ALL("get_all"),
+        GET_BY_STATE("get_by_state"),
+        GET_PAGE("get_page"),
+        GET_BY_ID("get_by_id"),
+        GET_BY_NAME("get_by_name"),
+        GET_CHANGES("get_changes"),
+        LOOKUP("lookup"),
+        UPDATE("update"),
+        DELETE("delete");
+
+        private final String tag;
+
+        Operation(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    public enum Query {
+        FIND_ALL("findAll"),
+        FIND_BY_STATE("findByStateOrderByIdAsc"),
+        FIND_PAGE("findByIdGreaterThanOrderByIdAsc"),
+        FIND_BY_ID("findById"),
+        FIND_BY_NAME("findByName"),
+        FIND_BY_IDS("findByIdIn"),
+        FIND_BY_NAMES("findByNameIn"),
+        FIND_CHANGED("findChangedBetween"),
+        FIND_DELETED("findDeletedBetween"),
+        EXISTS_BY_ID("existsById"),
+        SAVE("save"),
+        UPDATE("updateByIdAndVersion"),
+        DELETE("deleteWithTombstone");
+
+        private final String tag;
+
+        Query(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final Timer[][] serviceTimers = new Timer[Operation.values().length][MetricResult.values().length];
+
+    private final Timer[] queryTimers = new Timer[Query.values().length];
+
+    private final DistributionSummary[] rowSummaries = new DistributionSummary[Query.values().length];
+
+    private final Counter[] coalescedCounters = new Counter[Operation.values().length];
+
+    private final Timer mapperTimer;
+
+    public CityMetrics(MeterRegistry registry) {
+
+        for (Operation operation : Operation.values()) {
+            for (MetricResult result : MetricResult.values()) {
+                serviceTimers[operation.ordinal()][result.ordinal()] = Timer.builder(SERVICE_METRIC)
+                        .description("Time spent in CityService per operation")
+                        .tag("operation", operation.tag)
+                        .tag(MetricResult.TAG, result.getTag())
+                        .register(registry);
+            }
+        }
+
+        for (Query query : Query.values()) {
+            queryTimers[query.ordinal()] = Timer.builder(QUERY_METRIC)
+                    .description("Time spent in CityRepository per query")
+                    .tag("query", query.tag)
+                    .register(registry);
+            rowSummaries[query.ordinal()] = DistributionSummary.builder(ROWS_METRIC)
+                    .description("Rows fetched by CityRepository per query")
+                    .baseUnit("rows")
+                    .serviceLevelObjectives(1, 10, 100, 1_000, 10_000, 100_000)
+                    .tag("query", query.tag)
+                    .register(registry);
+        }
+
+        for (Operation operation : COALESCED_OPERATIONS) {
+            coalescedCounters[operation.ordinal()] = Counter.builder(COALESCED_METRIC)
+                    .description("Loads saved by joining an identical load already in flight")
+                    .tag("operation", operation.tag)
+                    .register(registry);
+        }
+
+        mapperTimer = Timer.builder(MAPPER_METRIC)
+                .description("Time spent mapping between City and CityDTO per call")
+                .register(registry);
+    }
+
+    public void recordOperation(Operation operation, MetricResult result, long startNanos) {
+        serviceTimers[operation.ordinal()][result.ordinal()].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordQuery(Query query, long startNanos, int rows) {
+        queryTimers[query.ordinal()].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        rowSummaries[query.ordinal()].record(rows);
+    }
+
+    public void recordCoalesced(Operation operation) {
+        coalescedCounters[operation.ordinal()].increment();
+    }
+
+    public void recordMapping(long startNanos) {
+        mapperTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.cityapi.metrics;
+
+/**
+ * Value of the {@code result} tag shared by the HTTP and service meters, so a not-found
+ * answer can be followed from the endpoint down to the service call.
+ */
+public enum MetricResult {
+    SUCCESS("success"),
+    NOT_FOUND("not_found"),
+    VALIDATION_ERROR("validation_error"),
+    PRECONDITION_FAILED("precondition_failed"),
+    CONFLICT("conflict"),
+    ERROR("error");
+
+    public static final String TAG = "result";
+
+    private final String tag;
+
+    MetricResult(String tag) {
+        this.tag = tag;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+}
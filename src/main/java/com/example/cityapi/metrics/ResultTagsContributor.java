@@ -0,0 +1,55 @@
+package com.example.cityapi.metrics;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.boot.actuate.metrics.web.servlet.WebMvcTagsContributor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Adds the {@code result} tag to {@code http.server.requests}, telling a missing city and a
+ * rejected payload apart from other client errors. The tags are built once and reused.
+ */
+@Component
+public class ResultTagsContributor implements WebMvcTagsContributor {
+
+    private static final Tags[] RESULT_TAGS = new Tags[MetricResult.values().length];
+
+    static {
+        for (MetricResult result : MetricResult.values()) {
+            RESULT_TAGS[result.ordinal()] = Tags.of(Tag.of(MetricResult.TAG, result.getTag()));
+        }
+    }
+
+    @Override
+    public Iterable<Tag> getTags(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                 Throwable exception) {
+        return RESULT_TAGS[resultOf(response == null ? HttpStatus.INTERNAL_SERVER_ERROR.value() : response.getStatus())
+                .ordinal()];
+    }
+
+    @Override
+    public Iterable<Tag> getLongRequestTags(HttpServletRequest request, Object handler) {
+        return Tags.empty();
+    }
+
+    static MetricResult resultOf(int status) {
+
+        if (status == HttpStatus.NOT_FOUND.value()) {
+            return MetricResult.NOT_FOUND;
+        }
+        if (status == HttpStatus.BAD_REQUEST.value()) {
+            return MetricResult.VALIDATION_ERROR;
+        }
+        if (status == HttpStatus.PRECONDITION_FAILED.value()) {
+            return MetricResult.PRECONDITION_FAILED;
+        }
+        if (status == HttpStatus.CONFLICT.value()) {
+            return MetricResult.CONFLICT;
+        }
+        return status < HttpStatus.BAD_REQUEST.value() ? MetricResult.SUCCESS : MetricResult.ERROR;
+    }
+}
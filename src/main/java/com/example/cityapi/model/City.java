@@ -9,6 +9,11 @@ import java.io.Serializable;
 @EqualsAndHashCode(callSuper = false, onlyExplicitlyIncluded = true)
 @Data
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_city_name", columnList = "name"),
+        @Index(name = "idx_city_state", columnList = "state"),
+        @Index(name = "idx_city_modified_version", columnList = "modifiedVersion")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
@@ -28,4 +33,12 @@ public class City implements Serializable {
     @Column(nullable = false)
     private State state;
 
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
+    /** Stamped by {@code CityModificationClock} on every write, for delta sync. */
+    @Column(nullable = false)
+    private Long modifiedVersion;
+
 }
\ No newline at end of file
@@ -0,0 +1,31 @@
+package com.example.cityapi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+/**
+ * Left behind by a deleted {@link City}, so delta sync clients learn about the delete.
+ */
+@Data
+@Entity
+@Table(name = "city_tombstone", indexes = {
+        @Index(name = "idx_city_tombstone_modified_version", columnList = "modifiedVersion")
+})
+@NoArgsConstructor
+@AllArgsConstructor
+public class CityTombstone {
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private Long modifiedVersion;
+
+}
@@ -1,12 +1,95 @@
 package com.example.cityapi.repository;
 
+import com.example.cityapi.enums.State;
 import com.example.cityapi.model.City;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
 public interface CityRepository extends JpaRepository<City, Long> {
     Optional<City> findByName(String name);
-}
\ No newline at end of file
+
+    List<City> findByIdIn(Collection<Long> ids);
+
+    List<City> findByNameIn(Collection<String> names);
+
+    List<City> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    List<City> findByStateOrderByIdAsc(State state);
+
+    @Query("select c.state, count(c) from City c group by c.state")
+    List<Object[]> countCitiesByState();
+
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READONLY, value = "true")
+    })
+    @Query("select c from City c order by c.id")
+    Stream<City> streamAllOrderedById();
+
+    @Query("select c from City c where c.modifiedVersion > :since and c.modifiedVersion <= :until "
+            + "order by c.modifiedVersion")
+    List<City> findChangedBetween(@Param("since") long since, @Param("until") long until);
+
+    @Query("select t.id from CityTombstone t where t.modifiedVersion > :since and t.modifiedVersion <= :until "
+            + "order by t.modifiedVersion")
+    List<Long> findDeletedBetween(@Param("since") long since, @Param("until") long until);
+
+    @Query("select max(c.modifiedVersion) from City c")
+    Long findMaxModifiedVersion();
+
+    @Query("select max(t.modifiedVersion) from CityTombstone t")
+    Long findMaxTombstoneVersion();
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update City c set c.name = :name, c.state = :state, c.version = c.version + 1, "
+            + "c.modifiedVersion = :modifiedVersion where c.id = :id and c.version = :version")
+    int updateByIdAndVersion(@Param("id") Long id, @Param("version") Long version,
+                             @Param("name") String name, @Param("state") State state,
+                             @Param("modifiedVersion") long modifiedVersion);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("delete from City c where c.id = :id")
+    int deleteCityById(@Param("id") Long id);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("delete from City c where c.id = :id and c.version = :version")
+    int deleteByIdAndVersion(@Param("id") Long id, @Param("version") Long version);
+
+    @Modifying
+    @Query(value = "insert into city_tombstone (id, modified_version) values (:id, :modifiedVersion)",
+            nativeQuery = true)
+    int insertTombstone(@Param("id") Long id, @Param("modifiedVersion") long modifiedVersion);
+
+    /**
+     * Deletes the city, only at {@code expectedVersion} when one is given, and leaves a
+     * tombstone in the same transaction.
+     */
+    @Transactional
+    default int deleteWithTombstone(Long id, Long expectedVersion, long modifiedVersion) {
+
+        int deleted = expectedVersion != null ? deleteByIdAndVersion(id, expectedVersion) : deleteCityById(id);
+        if (deleted > 0) {
+            insertTombstone(id, modifiedVersion);
+        }
+        return deleted;
+    }
+}
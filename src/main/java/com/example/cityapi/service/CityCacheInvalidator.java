@@ -0,0 +1,76 @@
+package com.example.cityapi.service;
+
+import com.example.cityapi.dto.request.CityDTO;
+import com.example.cityapi.event.CityChangedEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+import static com.example.cityapi.service.CityService.CITY_BY_ID_CACHE;
+import static com.example.cityapi.service.CityService.CITY_BY_NAME_CACHE;
+
+/**
+ * Evicts the lookup caches for the ids and names touched by a change. Runs right after the
+ * snapshot is swapped, so a reload triggered by a miss never sees the previous snapshot, and
+ * before the {@link CityVersionTracker} bumps the versions, so the keys evicted are the ones
+ * the current entries were cached under.
+ */
+@Component
+public class CityCacheInvalidator {
+
+    private final CacheManager cacheManager;
+
+    private final CityVersionTracker cityVersionTracker;
+
+    public CityCacheInvalidator(CacheManager cacheManager, CityVersionTracker cityVersionTracker) {
+        this.cacheManager = cacheManager;
+        this.cityVersionTracker = cityVersionTracker;
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    @EventListener
+    public void onCityChanged(CityChangedEvent event) {
+
+        switch (event.getType()) {
+            case CREATED:
+                evict(event.getAfter());
+                break;
+            case UPDATED:
+                evict(event.getBefore());
+                evict(event.getAfter());
+                break;
+            case DELETED:
+                evict(event.getBefore());
+                break;
+            case RELOADED:
+                clear(CITY_BY_ID_CACHE);
+                clear(CITY_BY_NAME_CACHE);
+                break;
+        }
+    }
+
+    private void evict(CityDTO city) {
+
+        Cache byId = cacheManager.getCache(CITY_BY_ID_CACHE);
+        if (byId != null && city.getId() != null) {
+            byId.evict(List.of(city.getId(), cityVersionTracker.getCityVersion(city.getId())));
+        }
+        Cache byName = cacheManager.getCache(CITY_BY_NAME_CACHE);
+        if (byName != null && city.getName() != null) {
+            byName.evict(List.of(city.getName(), cityVersionTracker.getCityNameVersion(city.getName())));
+        }
+    }
+
+    private void clear(String cacheName) {
+
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+}
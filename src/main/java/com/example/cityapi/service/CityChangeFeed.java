@@ -0,0 +1,108 @@
+package com.example.cityapi.service;
+
+import com.example.cityapi.dto.response.CityChangeDTO;
+import com.example.cityapi.event.CityChangedEvent;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Numbers every committed {@link CityChangedEvent} and keeps the most recent ones in a ring
+ * buffer, so change feed clients can resume from the last sequence they saw.
+ * <p>
+ * Sequences start at the boot time in milliseconds and grow by one per change. A sequence
+ * handed out by a previous run is therefore older than anything buffered now and is
+ * answered as not resumable instead of silently skipping changes.
+ */
+@Component
+public class CityChangeFeed {
+
+    private final CityChangeDTO[] buffer;
+
+    private final long firstSequence = System.currentTimeMillis();
+
+    private final List<Consumer<CityChangeDTO>> listeners = new CopyOnWriteArrayList<>();
+
+    private long latestSequence = firstSequence;
+
+    public CityChangeFeed(@Value("${city.changes.buffer-size:1024}") int bufferSize) {
+        this.buffer = new CityChangeDTO[bufferSize];
+    }
+
+    /**
+     * Listeners are called in sequence order while the change is being appended, so they
+     * must only hand it off.
+     */
+    public void addListener(Consumer<CityChangeDTO> listener) {
+        listeners.add(listener);
+    }
+
+    @EventListener
+    public synchronized void onCityChanged(CityChangedEvent event) {
+
+        CityChangeDTO change = CityChangeDTO.builder()
+                .sequence(++latestSequence)
+                .type(event.getType())
+                .id(idOf(event))
+                .city(event.getAfter())
+                .build();
+
+        buffer[slot(change.getSequence())] = change;
+        for (Consumer<CityChangeDTO> listener : listeners) {
+            listener.accept(change);
+        }
+    }
+
+    /**
+     * The changes after {@code sequence}, oldest first. The backlog is not resumable when the
+     * sequence is no longer buffered or was never handed out by this run.
+     */
+    public synchronized Backlog since(long sequence) {
+
+        long oldestResumable = Math.max(firstSequence, latestSequence - buffer.length);
+        if (sequence < oldestResumable || sequence > latestSequence) {
+            return new Backlog(latestSequence, false, Collections.emptyList());
+        }
+
+        List<CityChangeDTO> changes = new ArrayList<>((int) (latestSequence - sequence));
+        for (long next = sequence + 1; next <= latestSequence; next++) {
+            changes.add(buffer[slot(next)]);
+        }
+        return new Backlog(latestSequence, true, changes);
+    }
+
+    public synchronized long getLatestSequence() {
+        return latestSequence;
+    }
+
+    private int slot(long sequence) {
+        return (int) (sequence % buffer.length);
+    }
+
+    private static Long idOf(CityChangedEvent event) {
+
+        if (event.getAfter() != null) {
+            return event.getAfter().getId();
+        }
+        return event.getBefore() != null ? event.getBefore().getId() : null;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Backlog {
+
+        private final long latestSequence;
+
+        private final boolean resumable;
+
+        private final List<CityChangeDTO> changes;
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.cityapi.service;
+
+import com.example.cityapi.dto.request.CityDTO;
+import com.example.cityapi.dto.response.BulkImportResponseDTO;
+import com.example.cityapi.dto.response.ImportBatchResultDTO;
+import com.example.cityapi.dto.response.ImportRejectionDTO;
+import com.example.cityapi.enums.State;
+import com.example.cityapi.event.CityChangedEvent;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.StreamSupport;
+
+/**
+ * Loads large amounts of cities bypassing JPA: {@code City} uses an IDENTITY id, which keeps
+ * Hibernate from batching inserts, so rows are written with JDBC batches instead, one
+ * transaction per batch.
+ */
+@Service
+@Slf4j
+public class CityImportService {
+
+    /** Rejections listed in the response; beyond this they are only counted. */
+    static final int MAX_REPORTED_REJECTIONS = 1000;
+
+    private static final String INSERT_CITY_SQL = "insert into city (name, state, version, modified_version) values (?, ?, 0, ?)";
+
+    /**
+     * Reads each CSV record as its raw columns, so RFC 4180 quoting works ({@code "Foo, Bar",SC})
+     * and a record with the wrong column count is rejected instead of failing the import.
+     */
+    private static final ObjectReader CSV_READER = new CsvMapper()
+            .readerForArrayOf(String.class)
+            .with(CsvParser.Feature.WRAP_AS_ARRAY)
+            .with(CsvParser.Feature.SKIP_EMPTY_LINES)
+            .with(CsvParser.Feature.TRIM_SPACES);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final CityModificationClock modificationClock;
+
+    private final int batchSize;
+
+    public CityImportService(JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             ObjectMapper objectMapper,
+                             ApplicationEventPublisher eventPublisher,
+                             CityModificationClock modificationClock,
+                             @Value("${city.import.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.modificationClock = modificationClock;
+        this.batchSize = batchSize;
+    }
+
+    public BulkImportResponseDTO importJsonArray(InputStream inputStream) throws IOException {
+
+        log.info("Importing cities from a JSON array");
+
+        // A root-level array is unwrapped by the reader, so elements are bound one at a time
+        try (MappingIterator<CityDTO> cities = objectMapper.readerFor(CityDTO.class).readValues(inputStream)) {
+            return importCities(cities);
+        }
+    }
+
+    public BulkImportResponseDTO importNdjson(InputStream inputStream) throws IOException {
+
+        log.info("Importing cities from NDJSON");
+
+        try (MappingIterator<CityDTO> cities = objectMapper.readerFor(CityDTO.class).readValues(inputStream)) {
+            return importCities(cities);
+        }
+    }
+
+    public BulkImportResponseDTO importCsv(InputStream inputStream) throws IOException {
+
+        log.info("Importing cities from CSV");
+
+        try (MappingIterator<String[]> records = CSV_READER.readValues(inputStream)) {
+            Iterator<CityDTO> cities = StreamSupport
+                    .stream(Spliterators.spliteratorUnknownSize(records, Spliterator.ORDERED), false)
+                    .filter(columns -> !isCsvHeader(columns))
+                    .map(this::parseCsvRecord)
+                    .iterator();
+            return importCities(cities);
+        }
+    }
+
+    private BulkImportResponseDTO importCities(Iterator<CityDTO> cities) {
+
+        List<ImportBatchResultDTO> batches = new ArrayList<>();
+        List<ImportRejectionDTO> rejections = new ArrayList<>();
+        List<Object[]> batchArgs = new ArrayList<>(batchSize);
+        int received = 0;
+        int rejected = 0;
+        int inserted = 0;
+
+        try {
+            while (cities.hasNext()) {
+                CityDTO cityDTO = cities.next();
+                received++;
+                String reason = rejectionReason(cityDTO);
+                if (reason != null) {
+                    rejected++;
+                    if (rejections.size() < MAX_REPORTED_REJECTIONS) {
+                        rejections.add(ImportRejectionDTO.builder().record(received).reason(reason).build());
+                    }
+                    continue;
+                }
+                // The modification version is filled in when the batch is written
+                batchArgs.add(new Object[]{cityDTO.getName(), cityDTO.getState().name(), null});
+                if (batchArgs.size() == batchSize) {
+                    inserted += flush(batchArgs, batches);
+                }
+            }
+            if (!batchArgs.isEmpty()) {
+                inserted += flush(batchArgs, batches);
+            }
+        } finally {
+            log.info("Imported {} of {} cities in {} batches", inserted, received, batches.size());
+
+            // Batches commit on their own, so a parse error midway still leaves rows to reload
+            if (inserted > 0) {
+                eventPublisher.publishEvent(CityChangedEvent.reloaded());
+            }
+        }
+
+        return BulkImportResponseDTO
+                .builder()
+                .received(received)
+                .inserted(inserted)
+                .rejected(rejected)
+                .rejections(rejections)
+                .batches(batches)
+                .build();
+    }
+
+    private int flush(List<Object[]> batchArgs, List<ImportBatchResultDTO> batches) {
+
+        int[] updateCounts = modificationClock.write(modifiedVersion -> {
+            for (Object[] args : batchArgs) {
+                args[2] = modifiedVersion;
+            }
+            return transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(INSERT_CITY_SQL, batchArgs));
+        });
+
+        int inserted = 0;
+        for (int updateCount : updateCounts) {
+            // Drivers may report SUCCESS_NO_INFO (-2) for rows written in a batch
+            if (updateCount > 0 || updateCount == Statement.SUCCESS_NO_INFO) {
+                inserted++;
+            }
+        }
+
+        batches.add(ImportBatchResultDTO
+                .builder()
+                .batch(batches.size() + 1)
+                .size(batchArgs.size())
+                .inserted(inserted)
+                .build());
+        batchArgs.clear();
+
+        return inserted;
+    }
+
+    private boolean isCsvHeader(String[] columns) {
+        return columns.length == 2
+                && "name".equalsIgnoreCase(columns[0])
+                && "state".equalsIgnoreCase(columns[1]);
+    }
+
+    private CityDTO parseCsvRecord(String[] columns) {
+
+        if (columns.length != 2) {
+            // Rejected as malformed
+            return null;
+        }
+
+        String state = columns[1].toUpperCase();
+        return CityDTO
+                .builder()
+                .name(columns[0])
+                .state(isKnownState(state) ? State.valueOf(state) : null)
+                .build();
+    }
+
+    private boolean isKnownState(String initials) {
+
+        for (State state : State.values()) {
+            if (state.name().equals(initials)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Why the record cannot be inserted, or null when it can. */
+    private String rejectionReason(CityDTO cityDTO) {
+
+        if (cityDTO == null) {
+            return "malformed record";
+        }
+        if (cityDTO.getName() == null || cityDTO.getName().isBlank()) {
+            return "name is required";
+        }
+        if (cityDTO.getState() == null) {
+            return "state is missing or not a known state";
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.example.cityapi.service;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+/**
+ * Ids and names that recently matched no city, so repeated misses are answered without a
+ * query. An entry holds the {@link CityVersionTracker} version its key had before the query
+ * ran; any later change to that id or name moves the version on and the entry stops counting,
+ * including a change that committed while the query was running. Size and expiry follow the
+ * Caffeine spec of the other city caches.
+ */
+@Component
+public class CityMissCache {
+
+    public static final String CITY_MISS_BY_ID_CACHE = "cityMissById";
+
+    public static final String CITY_MISS_BY_NAME_CACHE = "cityMissByName";
+
+    private final Cache byId;
+
+    private final Cache byName;
+
+    public CityMissCache(CacheManager cacheManager) {
+        this.byId = requireCache(cacheManager, CITY_MISS_BY_ID_CACHE);
+        this.byName = requireCache(cacheManager, CITY_MISS_BY_NAME_CACHE);
+    }
+
+    public boolean isMissingId(Long id, long version) {
+        return isMissing(byId, id, version);
+    }
+
+    public boolean isMissingName(String name, long version) {
+        return isMissing(byName, name, version);
+    }
+
+    public void rememberMissingId(Long id, long version) {
+        byId.put(id, version);
+    }
+
+    public void rememberMissingName(String name, long version) {
+        byName.put(name, version);
+    }
+
+    private static boolean isMissing(Cache cache, Object key, long version) {
+
+        Long missVersion = cache.get(key, Long.class);
+        return missVersion != null && missVersion == version;
+    }
+
+    private static Cache requireCache(CacheManager cacheManager, String name) {
+
+        Cache cache = cacheManager.getCache(name);
+        if (cache == null) {
+            throw new IllegalStateException("Cache " + name + " is not configured, see spring.cache.cache-names");
+        }
+        return cache;
+    }
+}
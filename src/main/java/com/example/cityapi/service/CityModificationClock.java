@@ -0,0 +1,69 @@
+package com.example.cityapi.service;
+
+import com.example.cityapi.repository.CityRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+
+/**
+ * Hands out the modification versions stored in {@code city.modified_version} and
+ * {@code city_tombstone}. A write runs while holding the clock, from taking its version
+ * until its transaction has committed, so versions become visible in order: once a client
+ * has read everything up to {@link #getCurrentVersion()}, no row with a lower version can
+ * appear later. Like the snapshot and version tracker, this assumes one application
+ * instance writes to the database.
+ */
+@Slf4j
+@Component
+public class CityModificationClock {
+
+    private final CityRepository cityRepository;
+
+    private volatile long currentVersion;
+
+    public CityModificationClock(CityRepository cityRepository) {
+        this.cityRepository = cityRepository;
+    }
+
+    @PostConstruct
+    public synchronized void load() {
+
+        currentVersion = Math.max(valueOf(cityRepository.findMaxModifiedVersion()),
+                valueOf(cityRepository.findMaxTombstoneVersion()));
+
+        log.info("City modification version loaded at {}", currentVersion);
+    }
+
+    /**
+     * Runs a write, which must commit before returning, stamped with the next version. Writes
+     * publish their {@code CityChangedEvent} from inside {@code write}, so the snapshot, caches
+     * and change feed receive changes in the order they were committed.
+     */
+    public synchronized <T> T write(LongFunction<T> write) {
+
+        long nextVersion = currentVersion + 1;
+        T result = write.apply(nextVersion);
+        currentVersion = nextVersion;
+        return result;
+    }
+
+    /**
+     * Runs a read that no write interleaves with: every committed write has already published
+     * its events, and the next one starts only after the read returns. Does not take a version.
+     */
+    public synchronized <T> T read(Supplier<T> read) {
+        return read.get();
+    }
+
+    /** Every write up to this version has committed. */
+    public long getCurrentVersion() {
+        return currentVersion;
+    }
+
+    private static long valueOf(Long version) {
+        return version == null ? 0L : version;
+    }
+}
@@ -0,0 +1,264 @@
+package com.example.cityapi.service;
+
+import com.example.cityapi.dto.request.CityDTO;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Accent and case insensitive prefix index over city names, built as sorted parallel arrays
+ * so that a lookup is a binary search followed by a short scan. Every word of a name is
+ * indexed, so "paulo" finds "São Paulo". Optionally falls back to a bounded edit distance
+ * scan when the exact prefixes do not fill the requested number of results.
+ */
+final class CityNameIndex {
+
+    static final CityNameIndex EMPTY = of(Collections.emptyList());
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private static final Pattern SEPARATORS = Pattern.compile("[\\s\\-']+");
+
+    private static final Comparator<Entry> ENTRY_ORDER =
+            Comparator.comparing((Entry entry) -> entry.key).thenComparing(entry -> entry.city.getId());
+
+    private final String[] keys;
+
+    private final CityDTO[] cities;
+
+    private final boolean[] fullNames;
+
+    private CityNameIndex(String[] keys, CityDTO[] cities, boolean[] fullNames) {
+        this.keys = keys;
+        this.cities = cities;
+        this.fullNames = fullNames;
+    }
+
+    static CityNameIndex of(List<CityDTO> cities) {
+
+        List<Entry> entries = new ArrayList<>(cities.size() * 2);
+        for (CityDTO city : cities) {
+            addEntries(city, entries);
+        }
+        entries.sort(ENTRY_ORDER);
+
+        String[] keys = new String[entries.size()];
+        CityDTO[] indexedCities = new CityDTO[entries.size()];
+        boolean[] fullNames = new boolean[entries.size()];
+        for (int i = 0; i < entries.size(); i++) {
+            keys[i] = entries.get(i).key;
+            indexedCities[i] = entries.get(i).city;
+            fullNames[i] = entries.get(i).fullName;
+        }
+        return new CityNameIndex(keys, indexedCities, fullNames);
+    }
+
+    /**
+     * A copy without the entries of {@code removed} and with those of {@code added}, merged into
+     * place in one pass, so the other names are neither normalized nor sorted again. Either
+     * city may be null.
+     */
+    CityNameIndex withChange(CityDTO removed, CityDTO added) {
+
+        List<Entry> addedEntries = new ArrayList<>();
+        if (added != null) {
+            addEntries(added, addedEntries);
+            addedEntries.sort(ENTRY_ORDER);
+        }
+        Long removedId = removed == null ? null : removed.getId();
+
+        int capacity = keys.length + addedEntries.size();
+        String[] mergedKeys = new String[capacity];
+        CityDTO[] mergedCities = new CityDTO[capacity];
+        boolean[] mergedFullNames = new boolean[capacity];
+        int size = 0;
+        int next = 0;
+
+        for (int i = 0; i < keys.length; i++) {
+            if (cities[i].getId().equals(removedId)) {
+                continue;
+            }
+            for (; next < addedEntries.size() && addedEntries.get(next).compareTo(keys[i], cities[i]) < 0; next++, size++) {
+                mergedKeys[size] = addedEntries.get(next).key;
+                mergedCities[size] = addedEntries.get(next).city;
+                mergedFullNames[size] = addedEntries.get(next).fullName;
+            }
+            mergedKeys[size] = keys[i];
+            mergedCities[size] = cities[i];
+            mergedFullNames[size] = fullNames[i];
+            size++;
+        }
+        for (; next < addedEntries.size(); next++, size++) {
+            mergedKeys[size] = addedEntries.get(next).key;
+            mergedCities[size] = addedEntries.get(next).city;
+            mergedFullNames[size] = addedEntries.get(next).fullName;
+        }
+
+        return new CityNameIndex(Arrays.copyOf(mergedKeys, size), Arrays.copyOf(mergedCities, size),
+                Arrays.copyOf(mergedFullNames, size));
+    }
+
+    private static void addEntries(CityDTO city, List<Entry> entries) {
+
+        String normalized = normalize(city.getName());
+        if (normalized.isEmpty()) {
+            return;
+        }
+        entries.add(new Entry(normalized, city, true));
+        for (int i = normalized.indexOf(' '); i >= 0; i = normalized.indexOf(' ', i + 1)) {
+            entries.add(new Entry(normalized.substring(i + 1), city, false));
+        }
+    }
+
+    static String normalize(String name) {
+
+        if (name == null) {
+            return "";
+        }
+        String withoutAccents = DIACRITICS.matcher(Normalizer.normalize(name, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARATORS.matcher(withoutAccents.toLowerCase(Locale.ROOT).trim()).replaceAll(" ");
+    }
+
+    List<CityDTO> search(String query, int limit, int maxEdits) {
+
+        String prefix = normalize(query);
+        if (prefix.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        Set<Long> seen = new HashSet<>();
+        List<CityDTO> nameMatches = new ArrayList<>();
+        List<CityDTO> wordMatches = new ArrayList<>();
+
+        for (int i = lowerBound(prefix); i < keys.length && keys[i].startsWith(prefix); i++) {
+            if (fullNames[i] && nameMatches.size() < limit && seen.add(cities[i].getId())) {
+                nameMatches.add(cities[i]);
+            }
+        }
+        for (int i = lowerBound(prefix); i < keys.length && keys[i].startsWith(prefix); i++) {
+            if (!fullNames[i] && nameMatches.size() + wordMatches.size() < limit && seen.add(cities[i].getId())) {
+                wordMatches.add(cities[i]);
+            }
+        }
+
+        List<CityDTO> results = new ArrayList<>(nameMatches);
+        results.addAll(wordMatches);
+        if (maxEdits > 0 && results.size() < limit) {
+            results.addAll(fuzzySearch(prefix, limit - results.size(), maxEdits, seen));
+        }
+        return results;
+    }
+
+    private List<CityDTO> fuzzySearch(String prefix, int limit, int maxEdits, Set<Long> seen) {
+
+        Map<Long, Match> bestMatches = new HashMap<>();
+        int[] previousRow = new int[prefix.length() + maxEdits + 1];
+        int[] currentRow = new int[prefix.length() + maxEdits + 1];
+
+        for (int i = 0; i < keys.length; i++) {
+            if (seen.contains(cities[i].getId())) {
+                continue;
+            }
+            int distance = prefixDistance(prefix, keys[i], maxEdits, previousRow, currentRow);
+            if (distance <= maxEdits) {
+                bestMatches.merge(cities[i].getId(), new Match(distance, keys[i], cities[i]),
+                        (current, candidate) -> candidate.distance < current.distance ? candidate : current);
+            }
+        }
+
+        List<Match> matches = new ArrayList<>(bestMatches.values());
+        matches.sort(Comparator.comparingInt((Match match) -> match.distance).thenComparing(match -> match.key));
+
+        List<CityDTO> results = new ArrayList<>(Math.min(limit, matches.size()));
+        for (int i = 0; i < matches.size() && i < limit; i++) {
+            results.add(matches.get(i).city);
+        }
+        return results;
+    }
+
+    /**
+     * Smallest Levenshtein distance between {@code query} and any prefix of {@code key},
+     * giving up as soon as a whole row of the matrix exceeds {@code maxEdits}.
+     */
+    private static int prefixDistance(String query, String key, int maxEdits, int[] previousRow, int[] currentRow) {
+
+        int columns = Math.min(key.length(), query.length() + maxEdits);
+        for (int j = 0; j <= columns; j++) {
+            previousRow[j] = j;
+        }
+
+        for (int i = 1; i <= query.length(); i++) {
+            currentRow[0] = i;
+            int rowMinimum = i;
+            char queryChar = query.charAt(i - 1);
+            for (int j = 1; j <= columns; j++) {
+                int substitution = previousRow[j - 1] + (queryChar == key.charAt(j - 1) ? 0 : 1);
+                currentRow[j] = Math.min(substitution, Math.min(previousRow[j], currentRow[j - 1]) + 1);
+                rowMinimum = Math.min(rowMinimum, currentRow[j]);
+            }
+            if (rowMinimum > maxEdits) {
+                return maxEdits + 1;
+            }
+            int[] swap = previousRow;
+            previousRow = currentRow;
+            currentRow = swap;
+        }
+
+        int distance = previousRow[0];
+        for (int j = 1; j <= columns; j++) {
+            distance = Math.min(distance, previousRow[j]);
+        }
+        return distance;
+    }
+
+    private int lowerBound(String prefix) {
+
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle].compareTo(prefix) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static final class Entry {
+
+        private final String key;
+
+        private final CityDTO city;
+
+        private final boolean fullName;
+
+        private Entry(String key, CityDTO city, boolean fullName) {
+            this.key = key;
+            this.city = city;
+            this.fullName = fullName;
+        }
+
+        private int compareTo(String otherKey, CityDTO otherCity) {
+            int byKey = key.compareTo(otherKey);
+            return byKey != 0 ? byKey : city.getId().compareTo(otherCity.getId());
+        }
+    }
+
+    private static final class Match {
+
+        private final int distance;
+
+        private final String key;
+
+        private final CityDTO city;
+
+        private Match(int distance, String key, CityDTO city) {
+            this.distance = distance;
+            this.key = key;
+            this.city = city;
+        }
+    }
+}
@@ -1,106 +1,706 @@
 package com.example.cityapi.service;
 
 import com.example.cityapi.dto.request.CityDTO;
+import com.example.cityapi.dto.request.CityLookupDTO;
+import com.example.cityapi.dto.response.CityDeltaResponseDTO;
+import com.example.cityapi.dto.response.CityLookupResponseDTO;
+import com.example.cityapi.dto.response.CityPageResponseDTO;
 import com.example.cityapi.dto.response.MessageResponseDTO;
+import com.example.cityapi.dto.response.StateCountDTO;
+import com.example.cityapi.dto.response.StateStatisticsResponseDTO;
+import com.example.cityapi.enums.State;
+import com.example.cityapi.event.CityChangedEvent;
 import com.example.cityapi.model.City;
 import com.example.cityapi.exception.CityNotFoundException;
+import com.example.cityapi.exception.CityUpdateConflictException;
+import com.example.cityapi.exception.CityVersionMismatchException;
 import com.example.cityapi.mapper.CityMapper;
+import com.example.cityapi.metrics.CityMetrics;
+import com.example.cityapi.metrics.CityMetrics.Operation;
+import com.example.cityapi.metrics.CityMetrics.Query;
+import com.example.cityapi.metrics.MetricResult;
 import com.example.cityapi.repository.CityRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j
 public class CityService {
 
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    public static final int MAX_SEARCH_RESULTS = 50;
+
+    public static final int MAX_SEARCH_EDITS = 2;
+
+    public static final int MAX_LOOKUP_KEYS = 1000;
+
+    /** Tries of an update without {@code If-Match} before giving up on a row others keep changing. */
+    static final int MAX_UPDATE_ATTEMPTS = 5;
+
+    /** Bind parameters per {@code IN} list, well below the limits of H2 and PostgreSQL. */
+    static final int LOOKUP_CHUNK_SIZE = 500;
+
+    public static final String CITY_BY_ID_CACHE = "cityById";
+
+    public static final String CITY_BY_NAME_CACHE = "cityByName";
+
     private final CityMapper cityMapper = CityMapper.INSTANCE;
 
     @Autowired
     private CityRepository cityRepository;
 
-    public CityService(CityRepository cityRepository) {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final CitySnapshotHolder citySnapshotHolder;
+
+    private final CityStateStatistics cityStateStatistics;
+
+    private final CityVersionTracker cityVersionTracker;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final CityMetrics cityMetrics;
+
+    private final CityModificationClock modificationClock;
+
+    private final CityMissCache cityMissCache;
+
+    private final SingleFlight<Long, List<CityDTO>> allCitiesLoads = new SingleFlight<>();
+
+    private final SingleFlight<Map.Entry<Long, Long>, Optional<CityDTO>> cityByIdLoads = new SingleFlight<>();
+
+    private final SingleFlight<Map.Entry<String, Long>, Optional<CityDTO>> cityByNameLoads = new SingleFlight<>();
+
+    public CityService(CityRepository cityRepository,
+                       CitySnapshotHolder citySnapshotHolder,
+                       CityStateStatistics cityStateStatistics,
+                       CityVersionTracker cityVersionTracker,
+                       ApplicationEventPublisher eventPublisher,
+                       CityMetrics cityMetrics,
+                       CityModificationClock modificationClock,
+                       CityMissCache cityMissCache) {
         this.cityRepository = cityRepository;
+        this.citySnapshotHolder = citySnapshotHolder;
+        this.cityStateStatistics = cityStateStatistics;
+        this.cityVersionTracker = cityVersionTracker;
+        this.eventPublisher = eventPublisher;
+        this.cityMetrics = cityMetrics;
+        this.modificationClock = modificationClock;
+        this.cityMissCache = cityMissCache;
     }
 
     public MessageResponseDTO createNewCity(CityDTO cityDTO) {
 
         log.info("Creating a new city");
 
-        City cityToSave = cityMapper.dtoToModel(cityDTO);
-
-        City savedCity = cityRepository.save(cityToSave);
-
-        return createMessageResponse("City successfully created with ID ", savedCity.getId());
+        long start = System.nanoTime();
+        MetricResult result = MetricResult.ERROR;
+        try {
+            City cityToSave = cityMapper.dtoToModel(cityDTO);
+            // A POST always inserts; Spring Data tells new from existing entities by the version
+            cityToSave.setId(null);
+            cityToSave.setVersion(null);
+
+            City savedCity = modificationClock.write(modifiedVersion -> {
+                cityToSave.setModifiedVersion(modifiedVersion);
+                City saved = save(cityToSave);
+                eventPublisher.publishEvent(CityChangedEvent.created(toDto(saved)));
+                return saved;
+            });
+
+            result = MetricResult.SUCCESS;
+            return createMessageResponse("City successfully created with ID ", savedCity.getId());
+        } finally {
+            cityMetrics.recordOperation(Operation.CREATE, result, start);
+        }
     }
 
     public List<CityDTO> getAllCities() {
 
         log.info("Fetching all cities");
 
-        List<City> allCities = cityRepository.findAll();
+        long start = System.nanoTime();
+        MetricResult result = MetricResult.ERROR;
+        try {
+            List<CityDTO> cities = citySnapshotHolder.isServingReads()
+                    ? citySnapshotHolder.get().getCities()
+                    : allCitiesLoads.load(cityVersionTracker.getDatasetVersion(), () -> toDtos(findAll()),
+                            () -> cityMetrics.recordCoalesced(Operation.GET_ALL));
+
+            result = MetricResult.SUCCESS;
+            return cities;
+        } finally {
+            cityMetrics.recordOperation(Operation.GET_ALL, result, start);
+        }
+    }
 
-        return allCities
+    public List<CityDTO> getCitiesByState(State state) {
+
+        log.info("Fetching cities of state {}", state);
+
+        long start = System.nanoTime();
+        MetricResult result = MetricResult.ERROR;
+        try {
+            List<CityDTO> cities;
+            if (citySnapshotHolder.isServingReads()) {
+                CitySnapshot snapshot = citySnapshotHolder.get();
+                cities = Arrays.stream(snapshot.getIdsByState(state))
+                        .mapToObj(id -> snapshot.findById(id).orElseThrow())
+                        .collect(Collectors.toList());
+            } else {
+                cities = toDtos(findByState(state));
+            }
+
+            result = MetricResult.SUCCESS;
+            return cities;
+        } finally {
+            cityMetrics.recordOperation(Operation.GET_BY_STATE, result, start);
+        }
+    }
+
+    public StateStatisticsResponseDTO getStateStatistics() {
+
+        Map<State, Long> counts = cityStateStatistics.countAll();
+
+        List<StateCountDTO> states = counts.entrySet()
                 .stream()
-                .map(cityMapper::modelToDto)
+                .map(entry -> StateCountDTO
+                        .builder()
+                        .state(entry.getKey())
+                        .name(entry.getKey().getName())
+                        .cities(entry.getValue())
+                        .build())
                 .collect(Collectors.toList());
+
+        return StateStatisticsResponseDTO
+                .builder()
+                .total(counts.values().stream().mapToLong(Long::longValue).sum())
+                .states(states)
+                .build();
+    }
+
+    public CityPageResponseDTO getCitiesPage(Long after, int limit) {
+
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        long cursor = after == null ? 0L : after;
+
+        log.info("Fetching {} cities after id {}", pageSize, cursor);
+
+        long start = System.nanoTime();
+        MetricResult result = MetricResult.ERROR;
+        try {
+            // Fetch one extra row so we know whether another page exists without a count query
+            long queryStart = System.nanoTime();
+            List<City> cities = cityRepository.findByIdGreaterThanOrderByIdAsc(cursor, PageRequest.of(0, pageSize + 1));
+            cityMetrics.recordQuery(Query.FIND_PAGE, queryStart, cities.size());
+
+            boolean hasNext = cities.size() > pageSize;
+            List<CityDTO> content = toDtos(hasNext ? cities.subList(0, pageSize) : cities);
+
+            result = MetricResult.SUCCESS;
+            return CityPageResponseDTO
+                    .builder()
+                    .content(content)
+                    .limit(pageSize)
+                    .nextCursor(hasNext ? content.get(content.size() - 1).getId() : null)
+                    .build();
+        } finally {
+            cityMetrics.recordOperation(Operation.GET_PAGE, result, start);
+        }
+    }
+
+    /**
+     * Delta sync: the cities written and the ids deleted after version {@code since}. Both
+     * queries go through the modification version indexes, so the cost follows the size of
+     * the delta, not of the table.
+     */
+    public CityDeltaResponseDTO getCitiesChangedSince(long since) {
+
+        log.info("Fetching cities changed since version {}", since);
+
+        long start = System.nanoTime();
+        MetricResult result = MetricResult.ERROR;
+        try {
+            // Read first: every write up to here has committed, later ones are left for the next sync
+            long until = modificationClock.getCurrentVersion();
+            long from = Math.max(since, 0L);
+
+            List<City> changed = findChanged(from, until);
+            List<Long> deleted = findDeleted(from, until);
+
+            result = MetricResult.SUCCESS;
+            return CityDeltaResponseDTO
+                    .builder()
+                    .version(until)
+                    .changed(toDtos(changed))
+                    .deleted(deleted)
+                    .build();
+        } finally {
+            cityMetrics.recordOperation(Operation.GET_CHANGES, result, start);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void streamAllCities(Consumer<CityDTO> consumer) {
+
+        log.info("Streaming all cities");
+
+        try (Stream<City> cities = cityRepository.streamAllOrderedById()) {
+            cities.forEach(city -> {
+                consumer.accept(cityMapper.modelToDto(city));
+                // Keep the persistence context empty so memory stays flat regardless of table size
+                entityManager.detach(city);
+            });
+        }
+    }
+
+    public List<CityDTO> searchCitiesByName(String query, int limit, int maxEdits) {
+
+        log.info("Searching cities by name prefix {}", query);
+
+        return citySnapshotHolder.get().searchByName(
+                query,
+                Math.min(Math.max(limit, 1), MAX_SEARCH_RESULTS),
+                Math.min(Math.max(maxEdits, 0), MAX_SEARCH_EDITS));
+    }
+
+    /**
+     * The city as the snapshot has it, which lets a conditional request be revalidated
+     * without reaching the cache or the database.
+     */
+    public Optional<CityDTO> findKnownCityById(Long id) {
+        return citySnapshotHolder.get().findById(id);
+    }
+
+    public Optional<CityDTO> findKnownCityByName(String name) {
+        return citySnapshotHolder.get().findByName(name);
     }
 
+    /**
+     * Cached under the id and its {@link CityVersionTracker} version, read before the method
+     * runs: a load that raced a write is stored under the version the write replaced, which no
+     * later call asks for.
+     */
+    @Cacheable(cacheNames = CITY_BY_ID_CACHE, key = "{#id, @cityVersionTracker.getCityVersion(#id)}")
     public CityDTO getCityById(Long id) throws CityNotFoundException {
 
         log.info("Searching city id {} ", id);
 
-        City city = cityRepository.findById(id).orElseThrow(() -> new CityNotFoundException(
-                City.class.getName() + " not found with ID " + id));
-
-        return cityMapper.modelToDto(city);
+        long start = System.nanoTime();
+        MetricResult result = MetricResult.ERROR;
+        try {
+            CityDTO city;
+            if (citySnapshotHolder.isServingReads()) {
+                city = citySnapshotHolder.get().findById(id).orElseThrow(() -> CityNotFoundException.forId(id));
+            } else {
+                // Read before the query, so a change made meanwhile is neither remembered as missing nor
+                // answered by a load that started before it
+                long keyVersion = cityVersionTracker.getCityVersion(id);
+                if (cityMissCache.isMissingId(id, keyVersion)) {
+                    throw CityNotFoundException.forId(id);
+                }
+                Optional<CityDTO> found = cityByIdLoads.load(Map.entry(id, keyVersion),
+                        () -> findById(id).map(this::toDto),
+                        () -> cityMetrics.recordCoalesced(Operation.GET_BY_ID));
+                if (found.isEmpty()) {
+                    cityMissCache.rememberMissingId(id, keyVersion);
+                    throw CityNotFoundException.forId(id);
+                }
+                city = found.get();
+            }
+
+            result = MetricResult.SUCCESS;
+            return city;
+        } catch (CityNotFoundException e) {
+            result = MetricResult.NOT_FOUND;
+            throw e;
+        } finally {
+            cityMetrics.recordOperation(Operation.GET_BY_ID, result, start);
+        }
     }
 
+    @Cacheable(cacheNames = CITY_BY_NAME_CACHE, key = "{#name, @cityVersionTracker.getCityNameVersion(#name)}")
     public CityDTO getCityByName(String name) throws CityNotFoundException {
 
         log.info("Searching city name {} ", name);
 
-        City city = cityRepository.findByName(name)
-                .orElseThrow(() -> new CityNotFoundException(
-                        City.class.getName() + " not found with name " + name));
+        long start = System.nanoTime();
+        MetricResult result = MetricResult.ERROR;
+        try {
+            CityDTO city;
+            if (citySnapshotHolder.isServingReads()) {
+                city = citySnapshotHolder.get().findByName(name).orElseThrow(() -> CityNotFoundException.forName(name));
+            } else {
+                long keyVersion = cityVersionTracker.getCityNameVersion(name);
+                if (cityMissCache.isMissingName(name, keyVersion)) {
+                    throw CityNotFoundException.forName(name);
+                }
+                Optional<CityDTO> found = cityByNameLoads.load(Map.entry(name, keyVersion),
+                        () -> findByName(name).map(this::toDto),
+                        () -> cityMetrics.recordCoalesced(Operation.GET_BY_NAME));
+                if (found.isEmpty()) {
+                    cityMissCache.rememberMissingName(name, keyVersion);
+                    throw CityNotFoundException.forName(name);
+                }
+                city = found.get();
+            }
+
+            result = MetricResult.SUCCESS;
+            return city;
+        } catch (CityNotFoundException e) {
+            result = MetricResult.NOT_FOUND;
+            throw e;
+        } finally {
+            cityMetrics.recordOperation(Operation.GET_BY_NAME, result, start);
+        }
+    }
 
-        return cityMapper.modelToDto(city);
+    /**
+     * Resolves many ids and names in one call. The snapshot answers with one map probe per key;
+     * without it each kind of key costs one {@code IN} query per {@link #LOOKUP_CHUNK_SIZE}
+     * keys. Keys that match nothing are reported back instead of raising
+     * {@link CityNotFoundException}.
+     */
+    public CityLookupResponseDTO lookupCities(CityLookupDTO lookup) {
+
+        Collection<Long> ids = distinct(lookup.getIds());
+        Collection<String> names = distinct(lookup.getNames());
+
+        log.info("Looking up {} city ids and {} names", ids.size(), names.size());
+
+        long start = System.nanoTime();
+        MetricResult result = MetricResult.ERROR;
+        try {
+            Map<Long, CityDTO> byId;
+            Map<String, CityDTO> byName;
+            if (citySnapshotHolder.isServingReads()) {
+                CitySnapshot snapshot = citySnapshotHolder.get();
+                byId = probe(ids, snapshot::findById);
+                byName = probe(names, snapshot::findByName);
+            } else {
+                byId = findAllIn(ids, cityRepository::findByIdIn, CityDTO::getId, Query.FIND_BY_IDS);
+                byName = findAllIn(names, cityRepository::findByNameIn, CityDTO::getName, Query.FIND_BY_NAMES);
+            }
+
+            Map<Long, CityDTO> found = new LinkedHashMap<>();
+            List<Long> missingIds = new ArrayList<>();
+            List<String> missingNames = new ArrayList<>();
+            for (Long id : ids) {
+                CityDTO city = byId.get(id);
+                if (city == null) {
+                    missingIds.add(id);
+                } else {
+                    found.putIfAbsent(city.getId(), city);
+                }
+            }
+            for (String name : names) {
+                CityDTO city = byName.get(name);
+                if (city == null) {
+                    missingNames.add(name);
+                } else {
+                    found.putIfAbsent(city.getId(), city);
+                }
+            }
+
+            result = MetricResult.SUCCESS;
+            return CityLookupResponseDTO
+                    .builder()
+                    .cities(new ArrayList<>(found.values()))
+                    .missingIds(missingIds)
+                    .missingNames(missingNames)
+                    .build();
+        } finally {
+            cityMetrics.recordOperation(Operation.LOOKUP, result, start);
+        }
     }
 
-    public MessageResponseDTO  updateCityById(Long id, CityDTO cityDTO) throws CityNotFoundException {
+    /**
+     * Updates a city with one conditional statement. Without {@code expectedVersion} the version
+     * the snapshot knows is used, and the row is only read from the database when the snapshot
+     * has no entry for it or another write got in first.
+     */
+    public MessageResponseDTO updateCityById(Long id, CityDTO cityDTO, Long expectedVersion)
+            throws CityNotFoundException, CityVersionMismatchException {
 
         log.info("Updating city with id {} ", id);
 
-        verifyIfExists(id);
+        long start = System.nanoTime();
+        MetricResult result = MetricResult.ERROR;
+        try {
+            CityDTO existingCity = findCurrent(id);
+
+            if (expectedVersion != null) {
+                if (updateIfVersion(existingCity, expectedVersion, cityDTO) == 0) {
+                    rejectConditionalWrite(id, expectedVersion);
+                }
+            } else {
+                int attempts = 1;
+                while (updateIfVersion(existingCity, existingCity.getVersion(), cityDTO) == 0) {
+                    if (attempts++ == MAX_UPDATE_ATTEMPTS) {
+                        throw new CityUpdateConflictException(City.class.getName() + " with ID " + id
+                                + " kept changing during " + MAX_UPDATE_ATTEMPTS + " update attempts");
+                    }
+                    existingCity = toDto(verifyIfExists(id));
+                }
+            }
+
+            result = MetricResult.SUCCESS;
+            return createMessageResponse("City successfully updated with ID ", id);
+        } catch (CityNotFoundException e) {
+            result = MetricResult.NOT_FOUND;
+            throw e;
+        } catch (CityUpdateConflictException e) {
+            result = MetricResult.CONFLICT;
+            throw e;
+        } catch (CityVersionMismatchException e) {
+            result = MetricResult.PRECONDITION_FAILED;
+            throw e;
+        } finally {
+            cityMetrics.recordOperation(Operation.UPDATE, result, start);
+        }
+    }
+
+    public MessageResponseDTO deleteCityById(Long id, Long expectedVersion)
+            throws CityNotFoundException, CityVersionMismatchException {
+
+        log.info("Deleting city with id {} ", id);
 
-        City cityToUpdate = cityMapper.dtoToModel(cityDTO);
+        long start = System.nanoTime();
+        MetricResult result = MetricResult.ERROR;
+        try {
+            CityDTO existingCity = findCurrent(id);
+
+            long queryStart = System.nanoTime();
+            int deleted = modificationClock.write(modifiedVersion -> {
+                int rows = cityRepository.deleteWithTombstone(id, expectedVersion, modifiedVersion);
+                if (rows > 0) {
+                    eventPublisher.publishEvent(CityChangedEvent.deleted(existingCity));
+                }
+                return rows;
+            });
+            cityMetrics.recordQuery(Query.DELETE, queryStart, deleted);
+
+            if (deleted == 0) {
+                if (expectedVersion != null) {
+                    rejectConditionalWrite(id, expectedVersion);
+                }
+                throw CityNotFoundException.forId(id);
+            }
+
+            result = MetricResult.SUCCESS;
+            return createMessageResponse("City successfully deleted with ID ", id);
+        } catch (CityNotFoundException e) {
+            result = MetricResult.NOT_FOUND;
+            throw e;
+        } catch (CityVersionMismatchException e) {
+            result = MetricResult.PRECONDITION_FAILED;
+            throw e;
+        } finally {
+            cityMetrics.recordOperation(Operation.DELETE, result, start);
+        }
+    }
 
-        City updatedCity = cityRepository.save(cityToUpdate);
+    public String getCitiesTag() {
+        return cityVersionTracker.getDatasetTag();
+    }
 
-        return createMessageResponse("City successfully updated with ID ", updatedCity.getId());
+    private City verifyIfExists(Long id) throws CityNotFoundException {
 
+        return findById(id)
+                .orElseThrow(() -> CityNotFoundException.forId(id));
     }
 
-    public MessageResponseDTO deleteCityById(Long id) throws CityNotFoundException {
+    /**
+     * The city as the snapshot knows it, which is kept in step with every committed write, so
+     * mutations normally need no select to learn what they are replacing.
+     */
+    private CityDTO findCurrent(Long id) throws CityNotFoundException {
 
-        log.info("Deleting city with id {} ", id);
+        Optional<CityDTO> city = citySnapshotHolder.get().findById(id);
+        return city.isPresent() ? city.get() : toDto(verifyIfExists(id));
+    }
+
+    /**
+     * Updates the row if it still has {@code version} and, while the modification clock is held,
+     * publishes the change, so listeners see updates in the order they were committed.
+     */
+    private int updateIfVersion(CityDTO existingCity, Long version, CityDTO cityDTO) {
+
+        Long id = existingCity.getId();
+        long start = System.nanoTime();
+        int updated = modificationClock.write(modifiedVersion -> {
+            int rows = cityRepository.updateByIdAndVersion(
+                    id, version, cityDTO.getName(), cityDTO.getState(), modifiedVersion);
+            if (rows > 0) {
+                CityDTO updatedCity = CityDTO
+                        .builder()
+                        .id(id)
+                        .name(cityDTO.getName())
+                        .state(cityDTO.getState())
+                        .version(version + 1)
+                        .build();
+                eventPublisher.publishEvent(CityChangedEvent.updated(existingCity, updatedCity));
+            }
+            return rows;
+        });
+        cityMetrics.recordQuery(Query.UPDATE, start, updated);
+        return updated;
+    }
+
+    /** Called once a conditional write changed nothing; tells a missing row from a newer one. */
+    private void rejectConditionalWrite(Long id, Long expectedVersion)
+            throws CityNotFoundException, CityVersionMismatchException {
+
+        long start = System.nanoTime();
+        boolean exists = cityRepository.existsById(id);
+        cityMetrics.recordQuery(Query.EXISTS_BY_ID, start, exists ? 1 : 0);
+
+        if (exists) {
+            throw new CityVersionMismatchException(City.class.getName() + " with ID " + id
+                    + " is no longer at version " + expectedVersion);
+        }
+        throw CityNotFoundException.forId(id);
+    }
+
+    private List<City> findAll() {
+
+        long start = System.nanoTime();
+        List<City> cities = cityRepository.findAll();
+        cityMetrics.recordQuery(Query.FIND_ALL, start, cities.size());
+        return cities;
+    }
+
+    private List<City> findByState(State state) {
+
+        long start = System.nanoTime();
+        List<City> cities = cityRepository.findByStateOrderByIdAsc(state);
+        cityMetrics.recordQuery(Query.FIND_BY_STATE, start, cities.size());
+        return cities;
+    }
 
-        verifyIfExists(id);
+    private List<City> findChanged(long since, long until) {
+
+        if (since >= until) {
+            return Collections.emptyList();
+        }
+        long start = System.nanoTime();
+        List<City> cities = cityRepository.findChangedBetween(since, until);
+        cityMetrics.recordQuery(Query.FIND_CHANGED, start, cities.size());
+        return cities;
+    }
+
+    private List<Long> findDeleted(long since, long until) {
+
+        if (since >= until) {
+            return Collections.emptyList();
+        }
+        long start = System.nanoTime();
+        List<Long> ids = cityRepository.findDeletedBetween(since, until);
+        cityMetrics.recordQuery(Query.FIND_DELETED, start, ids.size());
+        return ids;
+    }
+
+    private <K> Map<K, CityDTO> findAllIn(Collection<K> keys, Function<List<K>, List<City>> query,
+                                          Function<CityDTO, K> key, Query metric) {
+
+        Map<K, CityDTO> cities = new HashMap<>();
+        List<K> remaining = new ArrayList<>(keys);
+        for (int from = 0; from < remaining.size(); from += LOOKUP_CHUNK_SIZE) {
+            long start = System.nanoTime();
+            int to = Math.min(from + LOOKUP_CHUNK_SIZE, remaining.size());
+            List<City> chunk = query.apply(remaining.subList(from, to));
+            cityMetrics.recordQuery(metric, start, chunk.size());
+            for (CityDTO city : toDtos(chunk)) {
+                cities.put(key.apply(city), city);
+            }
+        }
+        return cities;
+    }
+
+    private static <K> Map<K, CityDTO> probe(Collection<K> keys, Function<K, Optional<CityDTO>> lookup) {
+
+        Map<K, CityDTO> cities = new HashMap<>();
+        for (K key : keys) {
+            lookup.apply(key).ifPresent(city -> cities.put(key, city));
+        }
+        return cities;
+    }
+
+    private static <K> Collection<K> distinct(List<K> keys) {
+
+        if (keys == null) {
+            return Collections.emptyList();
+        }
+        Collection<K> distinct = new LinkedHashSet<>(keys);
+        distinct.remove(null);
+        return distinct;
+    }
+
+    private Optional<City> findById(Long id) {
+
+        long start = System.nanoTime();
+        Optional<City> city = cityRepository.findById(id);
+        cityMetrics.recordQuery(Query.FIND_BY_ID, start, city.isPresent() ? 1 : 0);
+        return city;
+    }
+
+    private Optional<City> findByName(String name) {
+
+        long start = System.nanoTime();
+        Optional<City> city = cityRepository.findByName(name);
+        cityMetrics.recordQuery(Query.FIND_BY_NAME, start, city.isPresent() ? 1 : 0);
+        return city;
+    }
+
+    private City save(City city) {
+
+        long start = System.nanoTime();
+        City savedCity = cityRepository.save(city);
+        cityMetrics.recordQuery(Query.SAVE, start, 0);
+        return savedCity;
+    }
 
-        cityRepository.deleteById(id);
+    private CityDTO toDto(City city) {
 
-        return createMessageResponse("City successfully deleted with ID ", id);
+        long start = System.nanoTime();
+        CityDTO cityDTO = cityMapper.modelToDto(city);
+        cityMetrics.recordMapping(start);
+        return cityDTO;
     }
 
-    private void verifyIfExists(Long id) throws CityNotFoundException {
+    private List<CityDTO> toDtos(List<City> cities) {
 
-        cityRepository.findById(id)
-                .orElseThrow(() -> new CityNotFoundException(
-                        (City.class.getName() + " not found with ID " + id)));
+        long start = System.nanoTime();
+        List<CityDTO> cityDTOs = new ArrayList<>(cities.size());
+        for (City city : cities) {
+            cityDTOs.add(cityMapper.modelToDto(city));
+        }
+        cityMetrics.recordMapping(start);
+        return cityDTOs;
     }
 
     private MessageResponseDTO createMessageResponse(String message, Long id) {
@@ -0,0 +1,191 @@
+package com.example.cityapi.service;
+
+import com.example.cityapi.dto.request.CityDTO;
+import com.example.cityapi.enums.State;
+
+import java.util.*;
+
+/**
+ * Immutable, fully indexed copy of the city table. Instances are never modified: every
+ * change produces a new snapshot, so readers can use one without any locking. The
+ * {@link CityDTO} instances it hands out are shared and must be treated as read-only.
+ */
+public final class CitySnapshot {
+
+    private static final long[] NO_IDS = new long[0];
+
+    private static final Comparator<CityDTO> BY_ID = Comparator.comparing(CityDTO::getId);
+
+    static final CitySnapshot EMPTY = of(Collections.emptyList());
+
+    private final List<CityDTO> cities;
+
+    private final Map<Long, CityDTO> byId;
+
+    private final Map<String, CityDTO> byName;
+
+    private final Map<State, long[]> idsByState;
+
+    private final CityNameIndex nameIndex;
+
+    private CitySnapshot(List<CityDTO> cities,
+                         Map<Long, CityDTO> byId,
+                         Map<String, CityDTO> byName,
+                         Map<State, long[]> idsByState,
+                         CityNameIndex nameIndex) {
+        this.cities = cities;
+        this.byId = byId;
+        this.byName = byName;
+        this.idsByState = idsByState;
+        this.nameIndex = nameIndex;
+    }
+
+    public static CitySnapshot of(Collection<CityDTO> cities) {
+
+        List<CityDTO> sorted = new ArrayList<>(cities);
+        sorted.sort(BY_ID);
+
+        Map<Long, CityDTO> byId = new HashMap<>(sorted.size() * 2);
+        Map<String, CityDTO> byName = new HashMap<>(sorted.size() * 2);
+        Map<State, List<Long>> idListsByState = new EnumMap<>(State.class);
+
+        for (CityDTO city : sorted) {
+            byId.put(city.getId(), city);
+            // Keep the lowest id for duplicated names, matching the first row the database would return
+            byName.putIfAbsent(city.getName(), city);
+            idListsByState.computeIfAbsent(city.getState(), state -> new ArrayList<>()).add(city.getId());
+        }
+
+        Map<State, long[]> idsByState = new EnumMap<>(State.class);
+        idListsByState.forEach((state, ids) -> idsByState.put(state, ids.stream().mapToLong(Long::longValue).toArray()));
+
+        return new CitySnapshot(
+                Collections.unmodifiableList(sorted),
+                Collections.unmodifiableMap(byId),
+                Collections.unmodifiableMap(byName),
+                Collections.unmodifiableMap(idsByState),
+                CityNameIndex.of(sorted));
+    }
+
+    /**
+     * A snapshot with {@code city} added or replaced. Only what the change touches is redone:
+     * the other cities are copied in order rather than sorted, and the name index merges the
+     * city's entries instead of normalizing every name again.
+     */
+    public CitySnapshot with(CityDTO city) {
+        return change(byId.get(city.getId()), city);
+    }
+
+    public CitySnapshot without(Long id) {
+
+        CityDTO previous = byId.get(id);
+        return previous == null ? this : change(previous, null);
+    }
+
+    private CitySnapshot change(CityDTO previous, CityDTO city) {
+
+        Long id = previous != null ? previous.getId() : city.getId();
+
+        List<CityDTO> sorted = new ArrayList<>(cities.size() + 1);
+        sorted.addAll(cities);
+        int position = Collections.binarySearch(sorted, previous != null ? previous : city, BY_ID);
+        if (city == null) {
+            sorted.remove(position);
+        } else if (position >= 0) {
+            sorted.set(position, city);
+        } else {
+            sorted.add(-position - 1, city);
+        }
+
+        Map<Long, CityDTO> changedById = new HashMap<>(byId);
+        Map<String, CityDTO> changedByName = new HashMap<>(byName);
+        Map<State, long[]> changedIdsByState = new EnumMap<>(State.class);
+        changedIdsByState.putAll(idsByState);
+
+        if (previous != null) {
+            changedById.remove(id);
+            CityDTO named = changedByName.get(previous.getName());
+            if (named != null && named.getId().equals(id)) {
+                changedByName.remove(previous.getName());
+                // Another city may share the name; the lowest id takes over, as in of()
+                for (CityDTO other : sorted) {
+                    if (other != city && Objects.equals(other.getName(), previous.getName())) {
+                        changedByName.put(other.getName(), other);
+                        break;
+                    }
+                }
+            }
+            long[] ids = removeId(changedIdsByState.getOrDefault(previous.getState(), NO_IDS), id);
+            if (ids.length == 0) {
+                changedIdsByState.remove(previous.getState());
+            } else {
+                changedIdsByState.put(previous.getState(), ids);
+            }
+        }
+        if (city != null) {
+            changedById.put(id, city);
+            CityDTO named = changedByName.get(city.getName());
+            if (named == null || named.getId() > id) {
+                changedByName.put(city.getName(), city);
+            }
+            changedIdsByState.put(city.getState(), insertId(changedIdsByState.getOrDefault(city.getState(), NO_IDS), id));
+        }
+
+        return new CitySnapshot(
+                Collections.unmodifiableList(sorted),
+                Collections.unmodifiableMap(changedById),
+                Collections.unmodifiableMap(changedByName),
+                Collections.unmodifiableMap(changedIdsByState),
+                nameIndex.withChange(previous, city));
+    }
+
+    private static long[] removeId(long[] ids, long id) {
+
+        int position = Arrays.binarySearch(ids, id);
+        if (position < 0) {
+            return ids;
+        }
+        long[] result = new long[ids.length - 1];
+        System.arraycopy(ids, 0, result, 0, position);
+        System.arraycopy(ids, position + 1, result, position, ids.length - position - 1);
+        return result;
+    }
+
+    private static long[] insertId(long[] ids, long id) {
+
+        int position = Arrays.binarySearch(ids, id);
+        if (position >= 0) {
+            return ids;
+        }
+        position = -position - 1;
+        long[] result = new long[ids.length + 1];
+        System.arraycopy(ids, 0, result, 0, position);
+        result[position] = id;
+        System.arraycopy(ids, position, result, position + 1, ids.length - position);
+        return result;
+    }
+
+    public List<CityDTO> getCities() {
+        return cities;
+    }
+
+    public Optional<CityDTO> findById(Long id) {
+        return Optional.ofNullable(byId.get(id));
+    }
+
+    public Optional<CityDTO> findByName(String name) {
+        return Optional.ofNullable(byName.get(name));
+    }
+
+    public List<CityDTO> searchByName(String query, int limit, int maxEdits) {
+        return nameIndex.search(query, limit, maxEdits);
+    }
+
+    public long[] getIdsByState(State state) {
+        return idsByState.getOrDefault(state, NO_IDS).clone();
+    }
+
+    public int size() {
+        return cities.size();
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.cityapi.service;
+
+import com.example.cityapi.event.CityChangedEvent;
+import com.example.cityapi.mapper.CityMapper;
+import com.example.cityapi.repository.CityRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the current {@link CitySnapshot} and swaps it atomically whenever a
+ * {@link CityChangedEvent} is published. Writers are serialized; readers only do a
+ * volatile read. With {@code city.read-mode=snapshot} the service answers reads from here
+ * instead of going through JPA.
+ * <p>
+ * The snapshot is loaded and maintained in every read mode, so every instance holds a copy
+ * of the table: name search has no database equivalent of its accent-insensitive and fuzzy
+ * index, and updates and deletes learn the row they replace from it instead of selecting
+ * it first. The read mode only decides whether plain lookups use it as well.
+ */
+@Slf4j
+@Component
+public class CitySnapshotHolder {
+
+    private static final String SNAPSHOT_READ_MODE = "snapshot";
+
+    private final CityMapper cityMapper = CityMapper.INSTANCE;
+
+    private final CityRepository cityRepository;
+
+    private final boolean servingReads;
+
+    private volatile CitySnapshot current = CitySnapshot.EMPTY;
+
+    public CitySnapshotHolder(CityRepository cityRepository, @Value("${city.read-mode:jpa}") String readMode) {
+        this.cityRepository = cityRepository;
+        this.servingReads = SNAPSHOT_READ_MODE.equalsIgnoreCase(readMode);
+    }
+
+    @PostConstruct
+    public synchronized void reload() {
+
+        current = CitySnapshot.of(cityRepository.findAll()
+                .stream()
+                .map(cityMapper::modelToDto)
+                .collect(Collectors.toList()));
+
+        log.info("City snapshot loaded with {} cities", current.size());
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener
+    public synchronized void onCityChanged(CityChangedEvent event) {
+
+        switch (event.getType()) {
+            case CREATED:
+            case UPDATED:
+                current = current.with(event.getAfter());
+                break;
+            case DELETED:
+                current = current.without(event.getBefore().getId());
+                break;
+            case RELOADED:
+                reload();
+                break;
+        }
+    }
+
+    public CitySnapshot get() {
+        return current;
+    }
+
+    public boolean isServingReads() {
+        return servingReads;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.cityapi.service;
+
+import com.example.cityapi.enums.State;
+import com.example.cityapi.event.CityChangedEvent;
+import com.example.cityapi.repository.CityRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Number of cities per {@link State}, kept in an array indexed by ordinal. The counts are
+ * loaded with a single GROUP BY at startup (and after bulk imports) and then maintained
+ * incrementally from {@link CityChangedEvent}s, so reading them never queries the database.
+ * <p>
+ * The recount holds the {@link CityModificationClock}, inside which every write publishes its
+ * event, so each committed change is either counted by the query or applied afterwards as an
+ * increment, never both and never neither.
+ */
+@Slf4j
+@Component
+public class CityStateStatistics {
+
+    private static final State[] STATES = State.values();
+
+    private final CityRepository cityRepository;
+
+    private final CityModificationClock modificationClock;
+
+    private final AtomicLongArray counts = new AtomicLongArray(STATES.length);
+
+    public CityStateStatistics(CityRepository cityRepository, CityModificationClock modificationClock) {
+        this.cityRepository = cityRepository;
+        this.modificationClock = modificationClock;
+    }
+
+    @PostConstruct
+    public void reload() {
+
+        modificationClock.read(() -> {
+            long[] loaded = new long[STATES.length];
+            for (Object[] row : cityRepository.countCitiesByState()) {
+                loaded[((State) row[0]).ordinal()] = (Long) row[1];
+            }
+            for (int i = 0; i < loaded.length; i++) {
+                counts.set(i, loaded[i]);
+            }
+            return null;
+        });
+
+        log.info("City counts per state loaded");
+    }
+
+    @EventListener
+    public void onCityChanged(CityChangedEvent event) {
+
+        switch (event.getType()) {
+            case CREATED:
+                increment(event.getAfter().getState());
+                break;
+            case UPDATED:
+                decrement(event.getBefore().getState());
+                increment(event.getAfter().getState());
+                break;
+            case DELETED:
+                decrement(event.getBefore().getState());
+                break;
+            case RELOADED:
+                reload();
+                break;
+        }
+    }
+
+    public long count(State state) {
+        return counts.get(state.ordinal());
+    }
+
+    public Map<State, Long> countAll() {
+
+        Map<State, Long> all = new EnumMap<>(State.class);
+        for (State state : STATES) {
+            all.put(state, counts.get(state.ordinal()));
+        }
+        return all;
+    }
+
+    private void increment(State state) {
+        if (state != null) {
+            counts.incrementAndGet(state.ordinal());
+        }
+    }
+
+    private void decrement(State state) {
+        if (state != null) {
+            counts.decrementAndGet(state.ordinal());
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.cityapi.service;
+
+import com.example.cityapi.dto.request.CityDTO;
+import com.example.cityapi.event.CityChangedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Version counters used to validate cached representations without touching the database.
+ * The dataset version is bumped on every committed change; each id and name of a current city
+ * also remembers the dataset version of the last change that touched it, which keys the
+ * lookup caches. Ids and names that no city has any more (deleted, or renamed away) are
+ * forgotten, so the maps never outgrow the table; forgetting one raises the version every
+ * untracked key reports to the current one, which keeps each key's version from ever going
+ * back to a value a cache entry may still be stored under.
+ * The dataset tag is prefixed with the boot time, so tags issued by a previous run never
+ * match. Single cities are tagged with their row version instead, see {@code CityController}.
+ * <p>
+ * Runs after every other {@link CityChangedEvent} listener, so a new version is only
+ * visible once caches and the snapshot already reflect the change.
+ */
+@Component
+public class CityVersionTracker {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+
+    private final Map<Long, Long> idVersions = new ConcurrentHashMap<>();
+
+    private final Map<String, Long> nameVersions = new ConcurrentHashMap<>();
+
+    private volatile long datasetVersion;
+
+    private volatile long baseVersion;
+
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @EventListener
+    public synchronized void onCityChanged(CityChangedEvent event) {
+
+        long version = datasetVersion + 1;
+
+        switch (event.getType()) {
+            case CREATED:
+                touch(event.getAfter(), version);
+                break;
+            case UPDATED:
+                touch(event.getAfter(), version);
+                if (!Objects.equals(event.getBefore().getName(), event.getAfter().getName())) {
+                    forgetName(event.getBefore().getName(), version);
+                }
+                break;
+            case DELETED:
+                forget(event.getBefore(), version);
+                break;
+            case RELOADED:
+                baseVersion = version;
+                idVersions.clear();
+                nameVersions.clear();
+                break;
+        }
+
+        datasetVersion = version;
+    }
+
+    public long getDatasetVersion() {
+        return datasetVersion;
+    }
+
+    public String getDatasetTag() {
+        return tag(datasetVersion);
+    }
+
+    public long getCityVersion(Long id) {
+        // The map is read before the base, which forget() raises before removing keys
+        Long version = idVersions.get(id);
+        return version != null ? version : baseVersion;
+    }
+
+    public long getCityNameVersion(String name) {
+        Long version = nameVersions.get(name);
+        return version != null ? version : baseVersion;
+    }
+
+    /** Ids and names currently tracked, which is at most the number of cities. */
+    int getTrackedKeys() {
+        return idVersions.size() + nameVersions.size();
+    }
+
+    private void forget(CityDTO city, long version) {
+        // Raised before the keys are removed, so a reader that misses them never sees the old base
+        baseVersion = version;
+        if (city.getId() != null) {
+            idVersions.remove(city.getId());
+        }
+        forgetName(city.getName(), version);
+    }
+
+    private void forgetName(String name, long version) {
+        if (name != null) {
+            baseVersion = version;
+            nameVersions.remove(name);
+        }
+    }
+
+    private void touch(CityDTO city, long version) {
+        if (city.getId() != null) {
+            idVersions.put(city.getId(), version);
+        }
+        if (city.getName() != null) {
+            nameVersions.put(city.getName(), version);
+        }
+    }
+
+    private String tag(long version) {
+        return epoch + "-" + version;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.cityapi.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Lets concurrent callers asking for the same key share one load: the first caller runs it,
+ * the others wait for its result (or its exception) instead of loading again. Nothing is kept
+ * once the load completes, so a caller arriving afterwards loads anew.
+ * <p>
+ * Callers put the version of the data in the key, so a load started before a change is never
+ * shared with a caller that arrives after it.
+ */
+class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the value of the load for {@code key}, running {@code loader} unless a load is
+     * already in flight, in which case {@code onShared} is called and that load is joined.
+     */
+    V load(K key, Supplier<V> loader, Runnable onShared) {
+
+        CompletableFuture<V> own = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, own);
+        if (existing != null) {
+            onShared.run();
+            return join(existing);
+        }
+
+        try {
+            V value = loader.get();
+            own.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    private static <V> V join(CompletableFuture<V> load) {
+
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -1,17 +1,137 @@
 package com.example.cityapi.startup;
 
+import com.example.cityapi.web.CityListBodyCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Warms up the application in the background once the context has started, running every
+ * warm-up task in parallel. Tomcat and the liveness probe come up right away; this
+ * indicator is part of the readiness group, so the readiness probe reports
+ * {@code OUT_OF_SERVICE} until all tasks have completed (or {@code DOWN} if one failed).
+ * Each task is recorded as a {@code city.warm-up} step in the actuator startup timeline.
+ */
+@Slf4j
 @Component
-public class ResourceInitializer {
+public class ResourceInitializer implements HealthIndicator {
 
-    ResourceInitializer() throws Exception {
-        // simulate resource init with random delay of a few seconds
-        int randomDelay = ThreadLocalRandom.current().nextInt(5, 9);
-        TimeUnit.SECONDS.sleep(randomDelay);
+    private final CityListBodyCache cityListBodyCache;
+
+    private final ApplicationStartup applicationStartup;
+
+    private final Duration resourceMinDelay;
+
+    private final Duration resourceMaxDelay;
+
+    private volatile CompletableFuture<Void> warmUp;
+
+    private volatile long warmUpMillis;
+
+    public ResourceInitializer(CityListBodyCache cityListBodyCache, ApplicationStartup applicationStartup,
+                               @Value("${city.warm-up.resource-min-delay:5s}") Duration resourceMinDelay,
+                               @Value("${city.warm-up.resource-max-delay:8s}") Duration resourceMaxDelay) {
+        this.cityListBodyCache = cityListBodyCache;
+        this.applicationStartup = applicationStartup;
+        this.resourceMinDelay = resourceMinDelay;
+        this.resourceMaxDelay = resourceMaxDelay;
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void onApplicationStarted() {
+        start();
+    }
+
+    synchronized CompletableFuture<Void> start() {
+
+        if (warmUp != null) {
+            return warmUp;
+        }
+
+        Map<String, Runnable> tasks = new LinkedHashMap<>();
+        tasks.put("resource", this::initializeResource);
+        tasks.put("cityList", cityListBodyCache::get);
+
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size(), warmUpThreads());
+        long start = System.nanoTime();
+
+        warmUp = CompletableFuture.allOf(tasks.entrySet().stream()
+                .map(task -> CompletableFuture.runAsync(() -> run(task.getKey(), task.getValue()), executor))
+                .toArray(CompletableFuture[]::new))
+                .whenComplete((ignored, failure) -> {
+                    warmUpMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    if (failure == null) {
+                        log.info("Warm-up completed in {} ms, accepting traffic", warmUpMillis);
+                    } else {
+                        log.error("Warm-up failed after {} ms, readiness stays down", warmUpMillis, failure);
+                    }
+                });
+        executor.shutdown();
+
+        return warmUp;
     }
 
+    @Override
+    public Health health() {
+
+        CompletableFuture<Void> current = warmUp;
+        if (current == null || !current.isDone()) {
+            return Health.outOfService().build();
+        }
+        try {
+            current.join();
+            return Health.up().withDetail("durationMs", warmUpMillis).build();
+        } catch (RuntimeException e) {
+            return Health.down().withException(e.getCause() != null ? e.getCause() : e).build();
+        }
+    }
+
+    private void run(String name, Runnable task) {
+
+        StartupStep step = applicationStartup.start("city.warm-up").tag("task", name);
+        try {
+            task.run();
+        } finally {
+            step.end();
+        }
+    }
+
+    // simulate resource init with random delay of a few seconds
+    private void initializeResource() {
+
+        long delay = ThreadLocalRandom.current().nextLong(resourceMinDelay.toMillis(), resourceMaxDelay.toMillis() + 1);
+        try {
+            TimeUnit.MILLISECONDS.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Resource initialization was interrupted", e);
+        }
+    }
+
+    private static ThreadFactory warmUpThreads() {
+
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "warm-up-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
 }
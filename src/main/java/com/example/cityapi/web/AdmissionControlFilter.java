@@ -0,0 +1,196 @@
+package com.example.cityapi.web;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admission control for the city API, so one noisy client cannot starve the connection pool
+ * and overload turns into fast rejections instead of requests queueing for a connection.
+ * <ul>
+ * <li>Each client has a token bucket refilled at {@code requestsPerSecond} and holding up to
+ * {@code burst} tokens. A client out of tokens gets {@code 429} with the seconds until its
+ * next token in {@code Retry-After}.</li>
+ * <li>At most {@code maxConcurrent} requests run at once. A request that finds no free slot
+ * within {@code maxQueueWait} gets {@code 503} with {@code Retry-After: 1}.</li>
+ * </ul>
+ * A bucket is a single {@link AtomicLong} holding the time at which it will be full again
+ * (the generic cell rate algorithm), updated with compare-and-set, so clients never lock each
+ * other out. Decisions are counted in {@code city.http.admission}.
+ */
+@Slf4j
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    public static final String ADMISSION_METRIC = "city.http.admission";
+
+    private static final long SHED_RETRY_AFTER_SECONDS = 1;
+
+    enum Decision {
+        ACCEPTED("accepted", HttpStatus.OK),
+        RATE_LIMITED("rate_limited", HttpStatus.TOO_MANY_REQUESTS),
+        SHED("shed", HttpStatus.SERVICE_UNAVAILABLE);
+
+        private final String tag;
+
+        private final HttpStatus status;
+
+        private final byte[] body;
+
+        Decision(String tag, HttpStatus status) {
+            this.tag = tag;
+            this.status = status;
+            this.body = ("{\"status\":" + status.value() + ",\"error\":\"" + status.getReasonPhrase() + "\"}")
+                    .getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    private final String apiKeyHeader;
+
+    private final long emissionIntervalNanos;
+
+    private final long burstNanos;
+
+    private final long maxQueueWaitNanos;
+
+    private final Cache<String, AtomicLong> buckets;
+
+    private final Semaphore slots;
+
+    private final Counter[] decisions = new Counter[Decision.values().length];
+
+    private final Ticker ticker;
+
+    public AdmissionControlFilter(AdmissionControlProperties properties, int maxConcurrent, MeterRegistry registry) {
+        this(properties, maxConcurrent, registry, Ticker.systemTicker());
+    }
+
+    AdmissionControlFilter(AdmissionControlProperties properties, int maxConcurrent, MeterRegistry registry,
+                           Ticker ticker) {
+
+        this.apiKeyHeader = properties.getApiKeyHeader();
+        this.emissionIntervalNanos = Math.max(1L, Math.round(TimeUnit.SECONDS.toNanos(1)
+                / properties.getRequestsPerSecond()));
+        this.burstNanos = emissionIntervalNanos * Math.max(properties.getBurst(), 1);
+        this.maxQueueWaitNanos = properties.getMaxQueueWait().toNanos();
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxClients())
+                .expireAfterAccess(Duration.ofNanos(burstNanos).plusMinutes(1))
+                .build();
+        this.slots = new Semaphore(maxConcurrent);
+        this.ticker = ticker;
+
+        for (Decision decision : Decision.values()) {
+            decisions[decision.ordinal()] = Counter.builder(ADMISSION_METRIC)
+                    .description("Requests admitted or rejected by the city API admission control")
+                    .tag("decision", decision.tag)
+                    .register(registry);
+        }
+        Gauge.builder(ADMISSION_METRIC + ".in-flight", slots, available -> maxConcurrent - available.availablePermits())
+                .description("Requests currently holding an admission slot")
+                .register(registry);
+        Gauge.builder(ADMISSION_METRIC + ".clients", buckets, Cache::estimatedSize)
+                .description("Clients with a rate limit bucket")
+                .register(registry);
+
+        log.info("Admission control: {} requests/s with bursts of {} per client, {} concurrent requests",
+                properties.getRequestsPerSecond(), properties.getBurst(), maxConcurrent);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        long waitNanos = acquireToken(clientKey(request));
+        if (waitNanos > 0) {
+            reject(response, Decision.RATE_LIMITED, toRetryAfterSeconds(waitNanos));
+            return;
+        }
+
+        boolean admitted;
+        try {
+            admitted = slots.tryAcquire(maxQueueWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admitted = false;
+        }
+        if (!admitted) {
+            reject(response, Decision.SHED, SHED_RETRY_AFTER_SECONDS);
+            return;
+        }
+
+        decisions[Decision.ACCEPTED.ordinal()].increment();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            slots.release();
+        }
+    }
+
+    /**
+     * Takes one token from the client's bucket. Returns 0 when the request may proceed,
+     * otherwise the nanoseconds until a token is available.
+     */
+    long acquireToken(String client) {
+
+        AtomicLong fullAt = buckets.get(client, ignored -> new AtomicLong(ticker.read()));
+        while (true) {
+            long now = ticker.read();
+            long current = fullAt.get();
+            long next = Math.max(current, now) + emissionIntervalNanos;
+            long excess = next - now - burstNanos;
+            if (excess > 0) {
+                return excess;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Behind a load balancer the remote address is the proxy's. With
+     * {@code server.forward-headers-strategy=native}, Tomcat replaces it with the client address
+     * from {@code X-Forwarded-For} when the request came through a trusted internal proxy,
+     * and with {@code framework} Spring's {@code ForwardedHeaderFilter} does the same, running
+     * before this filter. Either way, the address read here is already the client's.
+     */
+    private String clientKey(HttpServletRequest request) {
+
+        String apiKey = request.getHeader(apiKeyHeader);
+        return apiKey != null && !apiKey.isEmpty() ? "key:" + apiKey : "ip:" + request.getRemoteAddr();
+    }
+
+    private void reject(HttpServletResponse response, Decision decision, long retryAfterSeconds) throws IOException {
+
+        decisions[decision.ordinal()].increment();
+
+        response.setStatus(decision.status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(decision.body.length);
+        response.getOutputStream().write(decision.body);
+    }
+
+    private static long toRetryAfterSeconds(long waitNanos) {
+        return Math.max(1L, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+}
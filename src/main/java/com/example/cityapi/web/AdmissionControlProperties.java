@@ -0,0 +1,36 @@
+package com.example.cityapi.web;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Limits applied by {@link AdmissionControlFilter} to the city API, off unless
+ * {@code enabled} is set. Clients are told apart by {@code apiKeyHeader}, or by their
+ * address when they send no key.
+ */
+@Data
+@ConfigurationProperties(prefix = "city.http.admission")
+public class AdmissionControlProperties {
+
+    private boolean enabled = false;
+
+    /** Sustained requests per second allowed to each client. */
+    private double requestsPerSecond = 50;
+
+    /** Requests a client may send at once after being idle. */
+    private int burst = 100;
+
+    private String apiKeyHeader = "X-API-Key";
+
+    /** Clients whose buckets are kept; the least recently seen are forgotten first. */
+    private int maxClients = 100_000;
+
+    /** Requests served at the same time; 0 uses twice the Hikari maximum pool size. */
+    private int maxConcurrent = 0;
+
+    /** How long a request may wait for one of those slots before it is shed. */
+    private Duration maxQueueWait = Duration.ofMillis(50);
+
+}
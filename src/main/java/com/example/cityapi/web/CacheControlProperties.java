@@ -0,0 +1,31 @@
+package com.example.cityapi.web;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.http.CacheControl;
+
+import java.time.Duration;
+
+/**
+ * {@code Cache-Control} sent with city resources. A zero max age means "no-cache": clients
+ * and CDNs may store the response but must revalidate it with its ETag.
+ */
+@Data
+@ConfigurationProperties(prefix = "city.http.cache-control")
+public class CacheControlProperties {
+
+    private Duration maxAge = Duration.ZERO;
+
+    private Duration staleWhileRevalidate = Duration.ZERO;
+
+    private boolean cachePublic = true;
+
+    public CacheControl toCacheControl() {
+
+        CacheControl cacheControl = maxAge.isZero() ? CacheControl.noCache() : CacheControl.maxAge(maxAge);
+        if (!staleWhileRevalidate.isZero()) {
+            cacheControl = cacheControl.staleWhileRevalidate(staleWhileRevalidate);
+        }
+        return cachePublic ? cacheControl.cachePublic() : cacheControl.cachePrivate();
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.cityapi.web;
+
+import com.example.cityapi.dto.response.CityChangeDTO;
+import com.example.cityapi.service.CityChangeFeed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-Sent Events subscribers of the {@link CityChangeFeed}. Each change is sent with its
+ * sequence as the event id, so a reconnecting client resumes through {@code Last-Event-ID}.
+ * When the requested sequence is no longer buffered the client gets a {@code reset} event
+ * instead, and should fetch the full list once before applying further changes.
+ * <p>
+ * Changes are handed to every subscriber's own bounded queue without blocking, since the
+ * feed calls in while a write holds the modification clock. A subscriber whose queue fills up
+ * is completed and reconnects from its last event id.
+ * <p>
+ * {@link SseEmitter#send} blocks on the connection and cannot be interrupted, so queues are
+ * not drained on a small shared pool: the fan-out pool grows a thread for every subscriber
+ * that has changes to send (at most one task each) and lets idle ones go after a minute. A
+ * client that stops reading only pins its own thread, until the connector's write timeout
+ * ({@code server.tomcat.connection-timeout}) fails the send and the subscriber is dropped.
+ */
+@Slf4j
+@Component
+public class CityChangeStream {
+
+    public static final String RESET_EVENT = "reset";
+
+    private final CityChangeFeed cityChangeFeed;
+
+    private final long timeoutMillis;
+
+    private final int queueSize;
+
+    private final ExecutorService fanOut;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    public CityChangeStream(CityChangeFeed cityChangeFeed,
+                            @Value("${city.changes.emitter-timeout:30m}") Duration timeout,
+                            @Value("${city.changes.subscriber-queue-size:256}") int queueSize) {
+        this.cityChangeFeed = cityChangeFeed;
+        this.timeoutMillis = timeout.toMillis();
+        this.queueSize = queueSize;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.fanOut = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "city-changes-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        cityChangeFeed.addListener(this::broadcast);
+    }
+
+    public SseEmitter subscribe(Long since) {
+
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter, since, queueSize);
+
+        Runnable unsubscribe = () -> subscribers.remove(subscriber);
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(e -> unsubscribe.run());
+
+        // Registered before the backlog is taken, so no change falls between the two; the
+        // ones that made it into the backlog are skipped when the queue is drained
+        subscribers.add(subscriber);
+        fanOut.execute(() -> drain(subscriber));
+        return emitter;
+    }
+
+    @PreDestroy
+    public void close() {
+        List<Subscriber> closing = List.copyOf(subscribers);
+        subscribers.clear();
+        fanOut.shutdown();
+        closing.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    private void broadcast(CityChangeDTO change) {
+
+        for (Subscriber subscriber : subscribers) {
+            if (!subscriber.queue.offer(change)) {
+                subscriber.overflowed = true;
+            }
+            if (subscriber.scheduled.compareAndSet(false, true)) {
+                fanOut.execute(() -> drain(subscriber));
+            }
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+
+        do {
+            if (!subscriber.started) {
+                subscriber.started = true;
+                if (!replay(subscriber)) {
+                    return;
+                }
+            }
+            if (subscriber.overflowed) {
+                log.debug("Completing change feed subscriber that fell {} changes behind", queueSize);
+                drop(subscriber);
+                subscriber.emitter.complete();
+                return;
+            }
+
+            CityChangeDTO change;
+            while ((change = subscriber.queue.poll()) != null) {
+                if (change.getSequence() <= subscriber.lastSequence) {
+                    continue;
+                }
+                if (!send(subscriber, toEvent(change))) {
+                    return;
+                }
+                subscriber.lastSequence = change.getSequence();
+            }
+
+            subscriber.scheduled.set(false);
+            // A change offered between the last poll and clearing the flag scheduled no drain
+        } while ((!subscriber.queue.isEmpty() || subscriber.overflowed)
+                && subscriber.scheduled.compareAndSet(false, true));
+    }
+
+    private boolean replay(Subscriber subscriber) {
+
+        CityChangeFeed.Backlog backlog = cityChangeFeed.since(subscriber.since == null
+                ? cityChangeFeed.getLatestSequence() : subscriber.since);
+
+        if (!backlog.isResumable()) {
+            String latest = Long.toString(backlog.getLatestSequence());
+            if (!send(subscriber, SseEmitter.event().id(latest).name(RESET_EVENT).data(latest))) {
+                return false;
+            }
+        }
+        for (CityChangeDTO change : backlog.getChanges()) {
+            if (!send(subscriber, toEvent(change))) {
+                return false;
+            }
+        }
+
+        subscriber.lastSequence = backlog.getLatestSequence();
+        return true;
+    }
+
+    private void drop(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+        subscriber.queue.clear();
+    }
+
+    private static SseEmitter.SseEventBuilder toEvent(CityChangeDTO change) {
+        return SseEmitter.event()
+                .id(Long.toString(change.getSequence()))
+                .data(change, MediaType.APPLICATION_JSON);
+    }
+
+    private boolean send(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+
+        try {
+            subscriber.emitter.send(event);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Dropping change feed subscriber: {}", e.getMessage());
+            drop(subscriber);
+            subscriber.emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    private static class Subscriber {
+
+        private final SseEmitter emitter;
+
+        private final Long since;
+
+        private final BlockingQueue<CityChangeDTO> queue;
+
+        // Set while a drain task owns the subscriber; the first one is submitted by subscribe()
+        private final AtomicBoolean scheduled = new AtomicBoolean(true);
+
+        private volatile boolean overflowed;
+
+        // Only touched by the drain task that owns the subscriber
+        private boolean started;
+
+        private long lastSequence;
+
+        Subscriber(SseEmitter emitter, Long since, int queueSize) {
+            this.emitter = emitter;
+            this.since = since;
+            this.queue = new ArrayBlockingQueue<>(queueSize);
+        }
+    }
+}
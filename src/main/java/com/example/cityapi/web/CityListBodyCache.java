@@ -0,0 +1,151 @@
+package com.example.cityapi.web;
+
+import com.example.cityapi.dto.request.CityDTO;
+import com.example.cityapi.dto.response.CityColumnsResponseDTO;
+import com.example.cityapi.service.CityService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * UTF-8 JSON encoding of the full city list, plus its gzip compression, built once per
+ * dataset version. Requests for an unchanged dataset get the same byte arrays back, so the
+ * list endpoint skips Jackson and compression entirely.
+ * <p>
+ * The Smile and CBOR encodings and the columnar layout are built on their first request for
+ * a version and kept next to the JSON bytes until the dataset changes.
+ */
+@Slf4j
+@Component
+public class CityListBodyCache {
+
+    private final CityService cityService;
+
+    private final ObjectMapper objectMapper;
+
+    private final Map<CityListFormat, ObjectMapper> objectMappers = new EnumMap<>(CityListFormat.class);
+
+    private volatile EncodedBody current;
+
+    public CityListBodyCache(CityService cityService, ObjectMapper objectMapper,
+                             MappingJackson2SmileHttpMessageConverter smileConverter,
+                             MappingJackson2CborHttpMessageConverter cborConverter) {
+        this.cityService = cityService;
+        this.objectMapper = objectMapper;
+        objectMappers.put(CityListFormat.JSON, objectMapper);
+        objectMappers.put(CityListFormat.SMILE, smileConverter.getObjectMapper());
+        objectMappers.put(CityListFormat.CBOR, cborConverter.getObjectMapper());
+    }
+
+    public EncodedBody get() {
+
+        String tag = cityService.getCitiesTag();
+        EncodedBody body = current;
+        if (body != null && body.getTag().equals(tag)) {
+            return body;
+        }
+
+        synchronized (this) {
+            body = current;
+            if (body == null || !body.getTag().equals(tag)) {
+                // The tag is read before the data, so the bytes are never older than the tag they are stored under
+                body = encode(tag);
+                current = body;
+            }
+            return body;
+        }
+    }
+
+    /**
+     * The list of {@code body}'s version in the given format and layout. The default JSON
+     * rows are the bytes of {@code body} itself.
+     */
+    public byte[] get(EncodedBody body, CityListFormat format, boolean columnar) {
+
+        if (format == CityListFormat.JSON && !columnar) {
+            return body.getJson();
+        }
+        String variant = columnar ? format + " columns" : format.toString();
+        // Like the tag, the data is read after the body was built, so it is never older than its version
+        return body.variants.computeIfAbsent(variant, ignored -> encode(body.getTag(), variant, format, columnar));
+    }
+
+    private byte[] encode(String tag, String variant, CityListFormat format, boolean columnar) {
+
+        List<CityDTO> cities = cityService.getAllCities();
+        try {
+            byte[] encoded = objectMappers.get(format).writeValueAsBytes(columnar ? toColumns(cities) : cities);
+
+            log.info("Encoded city list for version {} as {}: {} bytes", tag, variant, encoded.length);
+
+            return encoded;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not encode the city list as " + variant, e);
+        }
+    }
+
+    private static CityColumnsResponseDTO toColumns(List<CityDTO> cities) {
+
+        return CityColumnsResponseDTO.builder()
+                .ids(cities.stream().map(CityDTO::getId).collect(Collectors.toList()))
+                .names(cities.stream().map(CityDTO::getName).collect(Collectors.toList()))
+                .states(cities.stream().map(CityDTO::getState).collect(Collectors.toList()))
+                .versions(cities.stream().map(CityDTO::getVersion).collect(Collectors.toList()))
+                .build();
+    }
+
+    private EncodedBody encode(String tag) {
+
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(cityService.getAllCities());
+            byte[] gzip = gzip(json);
+
+            log.info("Encoded city list for version {}: {} bytes, {} gzipped", tag, json.length, gzip.length);
+
+            return new EncodedBody(tag, json, gzip);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not encode the city list", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] content) {
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, content.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return compressed.toByteArray();
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class EncodedBody {
+
+        private final String tag;
+
+        private final byte[] json;
+
+        private final byte[] gzip;
+
+        private final ConcurrentMap<String, byte[]> variants = new ConcurrentHashMap<>();
+
+    }
+}
@@ -1,10 +1,12 @@
 package com.example.cityapi.web;
 
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
+@EnableConfigurationProperties(CacheControlProperties.class)
 public class WebConfig implements WebMvcConfigurer {
 
     @Override
@@ -0,0 +1,9 @@
+create table city (
+    id      bigint generated by default as identity primary key,
+    name    varchar(255) not null,
+    state   varchar(255) not null,
+    version bigint       not null default 0
+);
+
+create index idx_city_name on city (name);
+create index idx_city_state on city (state);
@@ -0,0 +1,14 @@
+-- Delta sync: every insert, update and delete is stamped with a modification version.
+-- Existing rows start at version 1, so a client syncing from 0 receives all of them.
+alter table city add column modified_version bigint not null default 1;
+alter table city alter column modified_version drop default;
+
+create index idx_city_modified_version on city (modified_version);
+
+-- One row per deleted city, so deletes can be synced as well
+create table city_tombstone (
+    id               bigint not null primary key,
+    modified_version bigint not null
+);
+
+create index idx_city_tombstone_modified_version on city_tombstone (modified_version);
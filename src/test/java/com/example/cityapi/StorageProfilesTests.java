@@ -0,0 +1,46 @@
+package com.example.cityapi;
+
+import com.example.cityapi.dto.request.CityDTO;
+import com.example.cityapi.service.CityService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+
+import static com.example.cityapi.utils.CityUtils.createFakeDTO;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DisplayName("Teste do armazenamento persistente")
+class StorageProfilesTests {
+
+    @TempDir
+    Path storagePath;
+
+    @Test
+    @DisplayName("Com o perfil h2-file, os dados devem continuar disponíveis após reiniciar a aplicação")
+    void givenFileStorageThenDataSurvivesRestart() throws Exception {
+        CityDTO city = createFakeDTO();
+        int appliedMigrations;
+
+        try (ConfigurableApplicationContext context = start()) {
+            context.getBean(CityService.class).createNewCity(city);
+            appliedMigrations = context.getBean(Flyway.class).info().applied().length;
+        }
+
+        try (ConfigurableApplicationContext context = start()) {
+            assertEquals(city.getName(), context.getBean(CityService.class).getCityByName(city.getName()).getName());
+            assertEquals(appliedMigrations, context.getBean(Flyway.class).info().applied().length);
+        }
+    }
+
+    private ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(CityApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.profiles.active=h2-file", "--city.storage.path=" + storagePath.toAbsolutePath());
+    }
+}
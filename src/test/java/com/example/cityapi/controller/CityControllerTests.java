@@ -1,11 +1,23 @@
 package com.example.cityapi.controller;
 
+import com.example.cityapi.config.BinaryFormatConfig;
+import com.example.cityapi.enums.State;
 import com.example.cityapi.exception.CityNotFoundException;
+import com.example.cityapi.exception.CityVersionMismatchException;
 import com.example.cityapi.dto.request.CityDTO;
+import com.example.cityapi.dto.request.CityLookupDTO;
+import com.example.cityapi.dto.response.CityDeltaResponseDTO;
+import com.example.cityapi.dto.response.CityLookupResponseDTO;
+import com.example.cityapi.dto.response.CityPageResponseDTO;
 import com.example.cityapi.dto.response.MessageResponseDTO;
 import com.example.cityapi.model.City;
 import com.example.cityapi.service.CityService;
-import io.micrometer.core.instrument.MeterRegistry;
+import com.example.cityapi.web.CacheControlProperties;
+import com.example.cityapi.web.CityChangeStream;
+import com.example.cityapi.web.CityListBodyCache;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -13,29 +25,42 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.servlet.view.json.MappingJackson2JsonView;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
 
 import static com.example.cityapi.utils.CityUtils.asJsonString;
 import static com.example.cityapi.utils.CityUtils.createFakeDTO;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.core.Is.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @DisplayName("Teste unitário do REST Controller")
 @ExtendWith(SpringExtension.class)
 @WebMvcTest(controllers = CityController.class)
+@Import({BinaryFormatConfig.class, CityListBodyCache.class})
 public class CityControllerTests {
 
     private static final String CITY_API_URL_PATH = "/api/v1/cities";
@@ -46,19 +71,27 @@ public class CityControllerTests {
     @Autowired
     private CityController cityController;
 
-    @Autowired
-    private MeterRegistry registry;
-
     @MockBean
     private CityService cityService;
 
+    @MockBean
+    private CityChangeStream cityChangeStream;
+
     @BeforeEach
     void setUp() {
-        cityController = new CityController(cityService, registry);
+        ObjectMapper objectMapper = new ObjectMapper();
+        BinaryFormatConfig binaryFormats = new BinaryFormatConfig();
+        CityListBodyCache cityListBodyCache = new CityListBodyCache(cityService, objectMapper,
+                binaryFormats.smileHttpMessageConverter(Jackson2ObjectMapperBuilder.json()),
+                binaryFormats.cborHttpMessageConverter(Jackson2ObjectMapperBuilder.json()));
+        cityController = new CityController(cityService, objectMapper,
+                new CacheControlProperties(), cityListBodyCache, cityChangeStream);
         mockMvc = MockMvcBuilders.standaloneSetup(cityController)
                 .setCustomArgumentResolvers(new PageableHandlerMethodArgumentResolver())
                 .setViewResolvers((viewName, locale) -> new MappingJackson2JsonView())
                 .build();
+
+        when(cityService.getCitiesTag()).thenReturn("boot-1");
     }
 
     @Test
@@ -127,7 +160,9 @@ public class CityControllerTests {
         mockMvc.perform(
                 get(CITY_API_URL_PATH + "/" + expectedInvalidId)
                         .contentType(MediaType.APPLICATION_JSON))
-                .andExpect(status().isNotFound());
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.status", is(404)))
+                .andExpect(jsonPath("$.error", is("Not Found")));
     }
 
     @Test
@@ -167,6 +202,240 @@ public class CityControllerTests {
                 .andExpect(jsonPath("$[0].state", is("SC")));
     }
 
+    @Test
+    @DisplayName("Quando GET é chamado aceitando gzip, então a lista pré-codificada deve ser retornada comprimida")
+    void whenGETIsCalledAcceptingGzipThenCompressedListShouldBeReturned() throws Exception {
+        when(cityService.getAllCities()).thenReturn(Collections.singletonList(createFakeDTO()));
+
+        byte[] compressed = mockMvc.perform(
+                get(CITY_API_URL_PATH)
+                        .header("Accept-Encoding", "br, gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("ETag", "\"boot-1-gzip\""))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            String json = new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+            assertEquals("[" + asJsonString(createFakeDTO()) + "]", json);
+        }
+    }
+
+    @Test
+    @DisplayName("Quando GET é chamado com o ETag da versão gzip sem aceitar gzip, então a lista deve ser reenviada")
+    void whenGETIsCalledWithTheGzipTagWithoutAcceptingGzipThenTheListShouldBeSentAgain() throws Exception {
+        when(cityService.getAllCities()).thenReturn(Collections.singletonList(createFakeDTO()));
+
+        mockMvc.perform(get(CITY_API_URL_PATH)
+                        .header("Accept-Encoding", "gzip")
+                        .header("If-None-Match", "\"boot-1-gzip\""))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(get(CITY_API_URL_PATH)
+                        .header("If-None-Match", "\"boot-1-gzip\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"boot-1\""))
+                .andExpect(header().doesNotExist("Content-Encoding"));
+    }
+
+    @Test
+    @DisplayName("Quando GET é chamado aceitando Smile e colunar, então a lista deve vir em colunas com o estado como ordinal")
+    void whenGETIsCalledAcceptingSmileColumnarThenColumnsWithStateOrdinalShouldBeReturned() throws Exception {
+        CityDTO expectedCityDTO = createFakeDTO();
+        expectedCityDTO.setId(1L);
+
+        when(cityService.getAllCities()).thenReturn(Collections.singletonList(expectedCityDTO));
+
+        byte[] smile = mockMvc.perform(
+                get(CITY_API_URL_PATH)
+                        .param("columnar", "true")
+                        .header("Accept", "application/x-jackson-smile, application/json;q=0.5")
+                        .header("Accept-Encoding", "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/x-jackson-smile"))
+                .andExpect(header().string("ETag", "\"boot-1-smile-columnar\""))
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode columns = new ObjectMapper(new SmileFactory()).readTree(smile);
+        assertEquals(1L, columns.get("ids").get(0).asLong());
+        assertEquals("Joinville", columns.get("names").get(0).asText());
+        assertEquals(State.SC.ordinal(), columns.get("states").get(0).asInt());
+    }
+
+    @Test
+    @DisplayName("Quando GET é chamado com since, então retorna as alterações e a versão atual")
+    void whenGETIsCalledWithSinceThenDeltaShouldBeReturned() throws Exception {
+        CityDeltaResponseDTO delta = CityDeltaResponseDTO.builder()
+                .version(12L)
+                .changed(Collections.singletonList(createFakeDTO()))
+                .deleted(Collections.singletonList(5L))
+                .build();
+
+        when(cityService.getCitiesChangedSince(10L)).thenReturn(delta);
+
+        mockMvc.perform(
+                get(CITY_API_URL_PATH)
+                        .param("since", "10")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version", is(12)))
+                .andExpect(jsonPath("$.changed", hasSize(1)))
+                .andExpect(jsonPath("$.deleted[0]", is(5)));
+    }
+
+    @Test
+    @DisplayName("Quando POST /lookup é chamado, então retorna as cidades encontradas e as chaves não encontradas")
+    void whenPOSTLookupIsCalledThenFoundCitiesAndMissingKeysShouldBeReturned() throws Exception {
+        CityLookupDTO lookup = CityLookupDTO.builder()
+                .ids(List.of(1L, 2L))
+                .names(List.of("Atlântida"))
+                .build();
+        CityLookupResponseDTO expectedResponse = CityLookupResponseDTO.builder()
+                .cities(Collections.singletonList(createFakeDTO()))
+                .missingIds(List.of(2L))
+                .missingNames(List.of("Atlântida"))
+                .build();
+
+        when(cityService.lookupCities(lookup)).thenReturn(expectedResponse);
+
+        mockMvc.perform(
+                post(CITY_API_URL_PATH + "/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(lookup)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cities[0].name", is("Joinville")))
+                .andExpect(jsonPath("$.missingIds[0]", is(2)))
+                .andExpect(jsonPath("$.missingNames[0]", is("Atlântida")));
+    }
+
+    @Test
+    @DisplayName("Quando GET /changes é chamado com Last-Event-ID, então o feed retoma a partir dessa sequência")
+    void whenGETChangesIsCalledWithLastEventIdThenResumeFromThatSequence() throws Exception {
+        when(cityChangeStream.subscribe(42L)).thenReturn(new SseEmitter());
+
+        mockMvc.perform(
+                get(CITY_API_URL_PATH + "/changes")
+                        .param("since", "7")
+                        .header("Last-Event-ID", "42")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted());
+
+        verify(cityChangeStream).subscribe(42L);
+    }
+
+    @Test
+    @DisplayName("Quando GET é chamado com If-None-Match atual, então retorna 304 sem consultar as cidades")
+    void whenGETIsCalledWithCurrentETagThenNotModifiedShouldBeReturned() throws Exception {
+        when(cityService.getCitiesTag()).thenReturn("boot-7");
+
+        mockMvc.perform(
+                get(CITY_API_URL_PATH)
+                        .header("If-None-Match", "\"boot-7\"")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"boot-7\""));
+
+        verify(cityService, never()).getAllCities();
+    }
+
+    @Test
+    @DisplayName("Quando GET com Id válido é chamado, então a resposta deve ter ETag e Cache-Control")
+    void whenGETWithValidIdIsCalledThenETagAndCacheControlShouldBeReturned() throws Exception {
+        var expectedValidId = 1L;
+
+        CityDTO expectedCityDTO = createFakeDTO();
+        expectedCityDTO.setVersion(3L);
+
+        when(cityService.getCityById(expectedValidId)).thenReturn(expectedCityDTO);
+
+        mockMvc.perform(
+                get(CITY_API_URL_PATH + "/" + expectedValidId)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1-3\""))
+                .andExpect(header().string("Cache-Control", "no-cache, public"));
+    }
+
+    @Test
+    @DisplayName("Quando GET com Id é chamado com If-None-Match atual, então retorna 304 sem carregar a cidade")
+    void whenGETWithIdIsCalledWithCurrentETagThenNotModifiedWithoutLoadingTheCity() throws Exception {
+        CityDTO knownCityDTO = createFakeDTO();
+        knownCityDTO.setVersion(3L);
+
+        when(cityService.findKnownCityById(1L)).thenReturn(Optional.of(knownCityDTO));
+
+        mockMvc.perform(
+                get(CITY_API_URL_PATH + "/1")
+                        .header("If-None-Match", "\"1-3\""))
+                .andExpect(status().isNotModified());
+
+        verify(cityService, never()).getCityById(1L);
+    }
+
+    @Test
+    @DisplayName("Quando PUT é chamado com o ETag recebido no GET, então a atualização é condicionada a essa versão")
+    void whenPUTWithETagFromGETIsCalledThenUpdateIsConditionalOnThatVersion() throws Exception {
+        var expectedValidId = 1L;
+        CityDTO expectedCityDTO = createFakeDTO();
+        expectedCityDTO.setVersion(3L);
+        MessageResponseDTO expectedResponseMessage = createMessageResponse("City successfully updated with ID ", 1L);
+
+        when(cityService.getCityById(expectedValidId)).thenReturn(expectedCityDTO);
+        when(cityService.updateCityById(expectedValidId, createFakeDTO(), 3L)).thenReturn(expectedResponseMessage);
+
+        String eTag = mockMvc.perform(get(CITY_API_URL_PATH + "/" + expectedValidId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(put(CITY_API_URL_PATH + "/" + expectedValidId)
+                        .header("If-Match", eTag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(createFakeDTO())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message", is(expectedResponseMessage.getMessage())));
+
+        verify(cityService).updateCityById(expectedValidId, createFakeDTO(), 3L);
+    }
+
+    @Test
+    @DisplayName("Quando PUT é chamado com o ETag de outra cidade, então a versão esperada nunca coincide")
+    void whenPUTWithETagOfAnotherCityIsCalledThenExpectedVersionNeverMatches() throws Exception {
+        var expectedValidId = 1L;
+
+        when(cityService.updateCityById(expectedValidId, createFakeDTO(), -1L))
+                .thenThrow(CityVersionMismatchException.class);
+
+        mockMvc.perform(put(CITY_API_URL_PATH + "/" + expectedValidId)
+                        .header("If-Match", "\"2-3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(createFakeDTO())))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    @DisplayName("Quando GET com limit é chamado, então uma página de cidades deve ser retornada")
+    void whenGETWithLimitIsCalledThenACityPageShouldBeReturned() throws Exception {
+        CityDTO expectedCityDTO = createFakeDTO();
+        CityPageResponseDTO expectedPage = CityPageResponseDTO
+                .builder()
+                .content(Collections.singletonList(expectedCityDTO))
+                .limit(1)
+                .nextCursor(1L)
+                .build();
+
+        when(cityService.getCitiesPage(null, 1)).thenReturn(expectedPage);
+
+        mockMvc.perform(
+                get(CITY_API_URL_PATH)
+                        .param("limit", "1")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].name", is("Joinville")))
+                .andExpect(jsonPath("$.nextCursor", is(1)));
+    }
+
     @Test
     @DisplayName("Quando DELETE com Id válido é chamado, então uma cidade deve ser excluída")
     void whenDELETEWithValidIdIsCalledThenACityShouldBeDeleted() throws Exception {
@@ -184,7 +453,7 @@ public class CityControllerTests {
         CityDTO expectedCityDTO = createFakeDTO();
         MessageResponseDTO expectedResponseMessage = createMessageResponse("City successfully updated with ID ", 1L);
 
-        when(cityService.updateCityById(expectedValidId, expectedCityDTO)).thenReturn(expectedResponseMessage);
+        when(cityService.updateCityById(expectedValidId, expectedCityDTO, null)).thenReturn(expectedResponseMessage);
 
         mockMvc.perform(put(CITY_API_URL_PATH + "/" + expectedValidId)
                         .contentType(MediaType.APPLICATION_JSON)
@@ -193,12 +462,28 @@ public class CityControllerTests {
                 .andExpect(jsonPath("$.message", is(expectedResponseMessage.getMessage())));
     }
 
+    @Test
+    @DisplayName("Quando PUT é chamado com If-Match desatualizado, então deve retornar 412")
+    void whenPUTWithStaleIfMatchIsCalledThenPreconditionFailedShouldBeReturned() throws Exception {
+        var expectedValidId = 1L;
+        CityDTO expectedCityDTO = createFakeDTO();
+
+        when(cityService.updateCityById(expectedValidId, expectedCityDTO, 2L))
+                .thenThrow(CityVersionMismatchException.class);
+
+        mockMvc.perform(put(CITY_API_URL_PATH + "/" + expectedValidId)
+                        .header("If-Match", "\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(expectedCityDTO)))
+                .andExpect(status().isPreconditionFailed());
+    }
+
     @Test
     @DisplayName("Quando DELETE com Id inválido é chamado, então uma cidade deve ser excluída")
     void whenDELETEWithInvalidIdIsCalledThenACityShouldBeDeleted() throws Exception {
         var expectedValidId = 1L;
 
-        when(cityService.deleteCityById(expectedValidId)).thenThrow(CityNotFoundException.class);
+        when(cityService.deleteCityById(expectedValidId, null)).thenThrow(CityNotFoundException.class);
 
         mockMvc.perform(delete(CITY_API_URL_PATH + "/" + expectedValidId)
                         .contentType(MediaType.APPLICATION_JSON))
@@ -0,0 +1,45 @@
+package com.example.cityapi.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DisplayName("Teste do envio assíncrono de logs")
+class AsyncShippingAppenderTests {
+
+    private final LoggerContext context = new LoggerContext();
+
+    private final Logger logger = context.getLogger(AsyncShippingAppenderTests.class);
+
+    @Test
+    @DisplayName("Com a fila abaixo do limite, eventos INFO são descartados e WARN continuam sendo enviados")
+    void givenQueueBelowThresholdThenDiscardInfoAndKeepWarn() {
+        ListAppender<ILoggingEvent> target = new ListAppender<>();
+        target.setContext(context);
+        target.start();
+
+        AsyncShippingAppender appender = new AsyncShippingAppender();
+        appender.setContext(context);
+        appender.setName("async");
+        appender.setQueueSize(2);
+        appender.setDiscardingThreshold(3);
+        appender.addAppender(target);
+        appender.start();
+
+        appender.doAppend(new LoggingEvent(Logger.FQCN, logger, Level.INFO, "Fetching all cities", null, null));
+        appender.doAppend(new LoggingEvent(Logger.FQCN, logger, Level.WARN, "Slow query", null, null));
+        appender.stop();
+
+        assertEquals(1, target.list.size());
+        assertEquals(Level.WARN, target.list.get(0).getLevel());
+        assertEquals(1, appender.getDiscardedCount());
+        assertEquals(0, appender.getQueueFullCount());
+    }
+}
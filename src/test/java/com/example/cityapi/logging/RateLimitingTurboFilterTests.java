@@ -0,0 +1,39 @@
+package com.example.cityapi.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DisplayName("Teste do limite de logs por requisição")
+class RateLimitingTurboFilterTests {
+
+    private final LoggerContext context = new LoggerContext();
+
+    @Test
+    @DisplayName("Acima do limite por segundo, os logs INFO do serviço são suprimidos e os WARN mantidos")
+    void givenMoreInfoLogsThanLimitThenSuppressTheRest() {
+        Logger serviceLogger = context.getLogger("com.example.cityapi.service.CityService");
+        Logger otherLogger = context.getLogger("com.example.cityapi.web.CityListBodyCache");
+
+        RateLimitingTurboFilter filter = new RateLimitingTurboFilter();
+        filter.setLoggerName("com.example.cityapi.service");
+        filter.setMaxPerSecond(2);
+        filter.start();
+
+        assertEquals(FilterReply.NEUTRAL, decide(filter, serviceLogger, Level.INFO));
+        assertEquals(FilterReply.NEUTRAL, decide(filter, serviceLogger, Level.INFO));
+        assertEquals(FilterReply.DENY, decide(filter, serviceLogger, Level.INFO));
+        assertEquals(FilterReply.NEUTRAL, decide(filter, serviceLogger, Level.WARN));
+        assertEquals(FilterReply.NEUTRAL, decide(filter, otherLogger, Level.INFO));
+        assertEquals(1, filter.getSuppressedCount());
+    }
+
+    private static FilterReply decide(RateLimitingTurboFilter filter, Logger logger, Level level) {
+        return filter.decide(null, logger, level, "Searching city id {}", new Object[]{1L}, null);
+    }
+}
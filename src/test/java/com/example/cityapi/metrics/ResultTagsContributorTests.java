@@ -0,0 +1,35 @@
+package com.example.cityapi.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+@DisplayName("Teste unitário da tag de resultado das métricas HTTP")
+public class ResultTagsContributorTests {
+
+    private final ResultTagsContributor contributor = new ResultTagsContributor();
+
+    @Test
+    @DisplayName("Cada status HTTP deve ser classificado no resultado correspondente")
+    void givenAStatusThenReturnItsResult() {
+        assertEquals(MetricResult.SUCCESS, ResultTagsContributor.resultOf(200));
+        assertEquals(MetricResult.SUCCESS, ResultTagsContributor.resultOf(304));
+        assertEquals(MetricResult.NOT_FOUND, ResultTagsContributor.resultOf(404));
+        assertEquals(MetricResult.VALIDATION_ERROR, ResultTagsContributor.resultOf(400));
+        assertEquals(MetricResult.CONFLICT, ResultTagsContributor.resultOf(409));
+        assertEquals(MetricResult.ERROR, ResultTagsContributor.resultOf(500));
+    }
+
+    @Test
+    @DisplayName("A mesma instância de tags deve ser reutilizada entre requisições")
+    void givenTwoResponsesWithSameStatusThenReuseTags() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        response.setStatus(404);
+
+        assertEquals("not_found", contributor.getTags(null, response, null, null).iterator().next().getValue());
+        assertSame(contributor.getTags(null, response, null, null), contributor.getTags(null, response, null, null));
+    }
+}
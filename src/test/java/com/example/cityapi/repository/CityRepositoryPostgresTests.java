@@ -0,0 +1,53 @@
+package com.example.cityapi.repository;
+
+import com.example.cityapi.enums.State;
+import com.example.cityapi.model.City;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the Flyway migrations and the repository queries on a real PostgreSQL. Skipped when no
+ * Docker daemon is available.
+ */
+@DisplayName("Teste do repositório no PostgreSQL")
+@Testcontainers(disabledWithoutDocker = true)
+@DataJpaTest
+@ActiveProfiles("postgres")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class CityRepositoryPostgresTests {
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:14-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired
+    private CityRepository cityRepository;
+
+    @Test
+    @DisplayName("Dada uma cidade salva, então a atualização condicional deve usar a versão")
+    void givenASavedCityThenConditionalUpdateChecksVersion() {
+        City city = cityRepository.saveAndFlush(City.builder().name("Joinville").state(State.SC).modifiedVersion(1L).build());
+
+        assertEquals(0, cityRepository.updateByIdAndVersion(city.getId(), city.getVersion() + 1, "Blumenau", State.SC, 2L));
+        assertEquals(1, cityRepository.updateByIdAndVersion(city.getId(), city.getVersion(), "Blumenau", State.SC, 2L));
+        assertTrue(cityRepository.findByName("Blumenau").isPresent());
+    }
+}
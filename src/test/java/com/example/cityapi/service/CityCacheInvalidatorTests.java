@@ -0,0 +1,46 @@
+package com.example.cityapi.service;
+
+import com.example.cityapi.dto.request.CityDTO;
+import com.example.cityapi.event.CityChangedEvent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.util.List;
+
+import static com.example.cityapi.service.CityService.CITY_BY_ID_CACHE;
+import static com.example.cityapi.service.CityService.CITY_BY_NAME_CACHE;
+import static com.example.cityapi.utils.CityUtils.createFakeDTO;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@DisplayName("Teste unitário da invalidação dos caches de cidades")
+public class CityCacheInvalidatorTests {
+
+    private final ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(CITY_BY_ID_CACHE, CITY_BY_NAME_CACHE);
+
+    private final CityVersionTracker versionTracker = new CityVersionTracker();
+
+    private final CityCacheInvalidator cacheInvalidator = new CityCacheInvalidator(cacheManager, versionTracker);
+
+    @Test
+    @DisplayName("Quando uma cidade é atualizada, então a entrada em cache é removida e a próxima leitura usa outra chave")
+    void whenACityIsUpdatedThenItsEntryIsEvictedAndTheKeyChanges() {
+        CityDTO city = createFakeDTO();
+        Cache byId = cacheManager.getCache(CITY_BY_ID_CACHE);
+        Cache byName = cacheManager.getCache(CITY_BY_NAME_CACHE);
+        List<Object> cachedIdKey = List.of(city.getId(), versionTracker.getCityVersion(city.getId()));
+        byId.put(cachedIdKey, city);
+        byName.put(List.of(city.getName(), versionTracker.getCityNameVersion(city.getName())), city);
+
+        CityChangedEvent updated = CityChangedEvent.updated(city, city);
+        cacheInvalidator.onCityChanged(updated);
+        versionTracker.onCityChanged(updated);
+
+        assertNull(byId.get(cachedIdKey));
+        assertNull(byName.get(List.of(city.getName(), 0L)));
+        // A load that started before the update and caches afterwards lands on the old key
+        assertNotEquals(cachedIdKey, List.of(city.getId(), versionTracker.getCityVersion(city.getId())));
+    }
+}
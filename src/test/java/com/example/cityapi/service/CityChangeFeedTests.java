@@ -0,0 +1,56 @@
+package com.example.cityapi.service;
+
+import com.example.cityapi.dto.request.CityDTO;
+import com.example.cityapi.dto.response.CityChangeDTO;
+import com.example.cityapi.event.CityChangedEvent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.example.cityapi.utils.CityUtils.createFakeDTO;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Teste unitário do feed de alterações")
+public class CityChangeFeedTests {
+
+    private final CityChangeFeed feed = new CityChangeFeed(2);
+
+    @Test
+    @DisplayName("Dada uma sequência recente, então retorna as alterações seguintes em ordem")
+    void givenARecentSequenceThenReturnTheFollowingChangesInOrder() {
+        long start = feed.getLatestSequence();
+        CityDTO city = createFakeDTO();
+
+        feed.onCityChanged(CityChangedEvent.created(city));
+        feed.onCityChanged(CityChangedEvent.deleted(city));
+
+        CityChangeFeed.Backlog backlog = feed.since(start);
+        List<CityChangeDTO> changes = backlog.getChanges();
+
+        assertTrue(backlog.isResumable());
+        assertEquals(2, changes.size());
+        assertEquals(start + 1, changes.get(0).getSequence());
+        assertEquals(CityChangedEvent.Type.CREATED, changes.get(0).getType());
+        assertEquals(CityChangedEvent.Type.DELETED, changes.get(1).getType());
+        assertEquals(city.getId(), changes.get(1).getId());
+        assertNull(changes.get(1).getCity());
+    }
+
+    @Test
+    @DisplayName("Dada uma sequência que já saiu do buffer, então a retomada não é possível")
+    void givenASequenceNoLongerBufferedThenBacklogIsNotResumable() {
+        long start = feed.getLatestSequence();
+
+        for (int i = 0; i < 3; i++) {
+            feed.onCityChanged(CityChangedEvent.created(createFakeDTO()));
+        }
+
+        assertFalse(feed.since(start).isResumable());
+        assertTrue(feed.since(start + 1).isResumable());
+        assertFalse(feed.since(start + 10).isResumable());
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.cityapi.service;
+
+import com.example.cityapi.dto.response.BulkImportResponseDTO;
+import com.example.cityapi.dto.response.ImportRejectionDTO;
+import com.example.cityapi.event.CityChangedEvent;
+import com.example.cityapi.repository.CityRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Teste unitário da importação em lote")
+@ExtendWith(MockitoExtension.class)
+public class CityImportServiceTests {
+
+    @Mock
+    private JdbcTemplate mockedJdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager mockedTransactionManager;
+
+    @Mock
+    private ApplicationEventPublisher mockedEventPublisher;
+
+    @Mock
+    private CityRepository mockedCityRepository;
+
+    private CityImportService cityImportService;
+
+    @BeforeEach
+    void setUp() {
+        cityImportService = new CityImportService(mockedJdbcTemplate, mockedTransactionManager, new ObjectMapper(),
+                mockedEventPublisher, new CityModificationClock(mockedCityRepository), 2);
+
+        when(mockedJdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            List<?> batchArgs = invocation.getArgument(1);
+            int[] updateCounts = new int[batchArgs.size()];
+            Arrays.fill(updateCounts, 1);
+            return updateCounts;
+        });
+    }
+
+    @Test
+    @DisplayName("Dado um array JSON de cidades, então insere em lotes")
+    void givenAJsonArrayThenInsertInBatches() throws IOException {
+        String json = "[{\"name\":\"Joinville\",\"state\":\"SC\"},"
+                + "{\"name\":\"Curitiba\",\"state\":\"PR\"},"
+                + "{\"name\":\"Porto Alegre\",\"state\":\"RS\"}]";
+
+        BulkImportResponseDTO response = cityImportService.importJsonArray(asStream(json));
+
+        assertEquals(3, response.getReceived());
+        assertEquals(3, response.getInserted());
+        assertEquals(2, response.getBatches().size());
+        assertEquals(2, response.getBatches().get(0).getSize());
+        assertEquals(1, response.getBatches().get(1).getSize());
+        verify(mockedJdbcTemplate, times(2)).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    @DisplayName("Dado um NDJSON de cidades, então insere todas as cidades válidas")
+    void givenNdjsonThenInsertValidCities() throws IOException {
+        String ndjson = "{\"name\":\"Joinville\",\"state\":\"SC\"}\n"
+                + "{\"name\":\"\",\"state\":\"SC\"}\n";
+
+        BulkImportResponseDTO response = cityImportService.importNdjson(asStream(ndjson));
+
+        assertEquals(2, response.getReceived());
+        assertEquals(1, response.getInserted());
+        assertEquals(1, response.getRejected());
+    }
+
+    @Test
+    @DisplayName("Dado um CSV de cidades, então ignora o cabeçalho e rejeita estados inválidos")
+    void givenCsvThenSkipHeaderAndRejectInvalidStates() throws IOException {
+        String csv = "name,state\nJoinville,SC\nBlumenau,XX\nItajaí\n";
+
+        BulkImportResponseDTO response = cityImportService.importCsv(asStream(csv));
+
+        assertEquals(3, response.getReceived());
+        assertEquals(1, response.getInserted());
+        assertEquals(2, response.getRejected());
+        assertEquals(List.of(
+                ImportRejectionDTO.builder().record(2).reason("state is missing or not a known state").build(),
+                ImportRejectionDTO.builder().record(3).reason("malformed record").build()),
+                response.getRejections());
+    }
+
+    @Test
+    @DisplayName("Dado um CSV com campos entre aspas, então mantém a vírgula no nome")
+    void givenCsvWithQuotedFieldsThenKeepCommaInName() throws IOException {
+        String csv = "name,state\n\"Joinville, Centro\",SC\n";
+        List<Object> names = new ArrayList<>();
+        when(mockedJdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            List<Object[]> batchArgs = invocation.getArgument(1);
+            batchArgs.forEach(args -> names.add(args[0]));
+            return new int[]{1};
+        });
+
+        BulkImportResponseDTO response = cityImportService.importCsv(asStream(csv));
+
+        assertEquals(1, response.getInserted());
+        assertEquals(List.of("Joinville, Centro"), names);
+    }
+
+    @Test
+    @DisplayName("Dado um JSON inválido após um lote gravado, então ainda notifica o recarregamento")
+    void givenParseErrorAfterCommittedBatchThenStillPublishReload() {
+        String json = "[{\"name\":\"Joinville\",\"state\":\"SC\"},"
+                + "{\"name\":\"Curitiba\",\"state\":\"PR\"},"
+                + "{\"name\":";
+
+        assertThrows(RuntimeException.class, () -> cityImportService.importJsonArray(asStream(json)));
+
+        verify(mockedEventPublisher).publishEvent(any(CityChangedEvent.class));
+    }
+
+    private InputStream asStream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.cityapi.service;
+
+import com.example.cityapi.dto.request.CityDTO;
+import com.example.cityapi.event.CityChangedEvent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import static com.example.cityapi.utils.CityUtils.createFakeDTO;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Teste unitário do cache de cidades inexistentes")
+public class CityMissCacheTests {
+
+    private final CityVersionTracker versionTracker = new CityVersionTracker();
+
+    private final CityMissCache missCache = new CityMissCache(new ConcurrentMapCacheManager(
+            CityMissCache.CITY_MISS_BY_ID_CACHE, CityMissCache.CITY_MISS_BY_NAME_CACHE));
+
+    @Test
+    @DisplayName("Dado um ID lembrado como inexistente, quando a cidade é criada, então deixa de ser inexistente")
+    void givenARememberedMissingIdWhenTheCityIsCreatedThenItIsNoLongerMissing() {
+        CityDTO city = createFakeDTO();
+        long versionBeforeQuery = versionTracker.getCityVersion(city.getId());
+
+        missCache.rememberMissingId(city.getId(), versionBeforeQuery);
+        assertTrue(missCache.isMissingId(city.getId(), versionTracker.getCityVersion(city.getId())));
+
+        versionTracker.onCityChanged(CityChangedEvent.created(city));
+
+        assertFalse(missCache.isMissingId(city.getId(), versionTracker.getCityVersion(city.getId())));
+        assertFalse(missCache.isMissingName(city.getName(), versionTracker.getCityNameVersion(city.getName())));
+    }
+}
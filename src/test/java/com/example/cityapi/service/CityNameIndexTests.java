@@ -0,0 +1,77 @@
+package com.example.cityapi.service;
+
+import com.example.cityapi.dto.request.CityDTO;
+import com.example.cityapi.enums.State;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Teste unitário do índice de nomes de cidades")
+public class CityNameIndexTests {
+
+    private final CityNameIndex index = CityNameIndex.of(Arrays.asList(
+            city(1L, "São Paulo", State.SP),
+            city(2L, "São José", State.SC),
+            city(3L, "Joinville", State.SC),
+            city(4L, "Santa Bárbara d'Oeste", State.SP)));
+
+    @Test
+    @DisplayName("Dado um prefixo sem acento, então retorna as cidades acentuadas")
+    void givenAPrefixWithoutAccentsThenReturnAccentedCities() {
+        List<CityDTO> cities = index.search("sao", 10, 0);
+
+        assertEquals(Arrays.asList(2L, 1L), Arrays.asList(cities.get(0).getId(), cities.get(1).getId()));
+    }
+
+    @Test
+    @DisplayName("Dado o prefixo de uma palavra do nome, então retorna a cidade")
+    void givenAPrefixOfAWordThenReturnTheCity() {
+        List<CityDTO> cities = index.search("Paulo", 10, 0);
+
+        assertEquals(1, cities.size());
+        assertEquals(1L, cities.get(0).getId());
+    }
+
+    @Test
+    @DisplayName("Dado um nome com erro de digitação e distância de edição, então retorna a cidade")
+    void givenAMisspelledNameAndEditDistanceThenReturnTheCity() {
+        assertTrue(index.search("Joinvile", 10, 0).isEmpty());
+
+        List<CityDTO> cities = index.search("Joinvile", 10, 1);
+
+        assertEquals(1, cities.size());
+        assertEquals(3L, cities.get(0).getId());
+    }
+
+    @Test
+    @DisplayName("Dado um limite, então retorna no máximo esse número de cidades")
+    void givenALimitThenReturnAtMostThatManyCities() {
+        assertEquals(1, index.search("s", 1, 0).size());
+    }
+
+    @Test
+    @DisplayName("Dada uma cidade renomeada, então o índice atualizado é igual ao reconstruído")
+    void givenARenamedCityThenTheChangedIndexMatchesARebuild() {
+        CityDTO renamed = city(2L, "Joinville do Sul", State.SC);
+
+        CityNameIndex changed = index.withChange(city(2L, "São José", State.SC), renamed);
+        CityNameIndex rebuilt = CityNameIndex.of(Arrays.asList(
+                city(1L, "São Paulo", State.SP),
+                renamed,
+                city(3L, "Joinville", State.SC),
+                city(4L, "Santa Bárbara d'Oeste", State.SP)));
+
+        for (String query : Arrays.asList("j", "joinville", "sul", "sao", "s")) {
+            assertEquals(rebuilt.search(query, 10, 1), changed.search(query, 10, 1), query);
+        }
+    }
+
+    private static CityDTO city(Long id, String name, State state) {
+        return CityDTO.builder().id(id).name(name).state(state).build();
+    }
+}
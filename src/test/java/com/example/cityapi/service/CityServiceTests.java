@@ -1,26 +1,48 @@
 package com.example.cityapi.service;
 
 import com.example.cityapi.exception.CityNotFoundException;
+import com.example.cityapi.exception.CityUpdateConflictException;
+import com.example.cityapi.exception.CityVersionMismatchException;
 import com.example.cityapi.dto.request.CityDTO;
+import com.example.cityapi.dto.request.CityLookupDTO;
+import com.example.cityapi.dto.response.CityDeltaResponseDTO;
+import com.example.cityapi.dto.response.CityLookupResponseDTO;
+import com.example.cityapi.dto.response.CityPageResponseDTO;
 import com.example.cityapi.dto.response.MessageResponseDTO;
 import com.example.cityapi.enums.State;
+import com.example.cityapi.event.CityChangedEvent;
+import com.example.cityapi.metrics.CityMetrics;
+import com.example.cityapi.metrics.MetricResult;
 import com.example.cityapi.model.City;
 import com.example.cityapi.repository.CityRepository;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import static com.example.cityapi.utils.CityUtils.createFakeDTO;
 import static com.example.cityapi.utils.CityUtils.createFakeEntity;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @DisplayName("Teste unitário da camada de Serviço")
@@ -30,9 +52,36 @@ public class CityServiceTests {
     @Mock
     private CityRepository mockedRepository;
 
+    @Mock
+    private CitySnapshotHolder mockedSnapshotHolder;
+
+    @Mock
+    private CityStateStatistics mockedStateStatistics;
+
+    @Mock
+    private CityVersionTracker mockedVersionTracker;
+
+    @Mock
+    private ApplicationEventPublisher mockedEventPublisher;
+
+    @Mock
+    private CityMetrics mockedMetrics;
+
+    @Mock
+    private CityModificationClock mockedModificationClock;
+
+    @Mock
+    private CityMissCache mockedMissCache;
+
     @InjectMocks
     private CityService cityService;
 
+    @BeforeEach
+    void setUp() {
+        lenient().when(mockedModificationClock.write(any()))
+                .thenAnswer(invocation -> invocation.<LongFunction<?>>getArgument(0).apply(8L));
+    }
+
     @Test
     @DisplayName("Dado uma CityDTO então retorna sucesso na criação")
     void givenACityDTOThenReturnSuccessOnCreate() {
@@ -44,6 +93,7 @@ public class CityServiceTests {
         MessageResponseDTO successMessage = cityService.createNewCity(cityDTO);
 
         assertEquals("City successfully created with ID 1", successMessage.getMessage());
+        verify(mockedEventPublisher).publishEvent(any(CityChangedEvent.class));
     }
 
     @Test
@@ -63,14 +113,48 @@ public class CityServiceTests {
         assertEquals(expectedSavedCity.getState(), cityDTO.getState());
     }
 
+    @Test
+    @DisplayName("Com o modo snapshot ativo, dado um ID válido, então retorna a cidade sem consultar o banco")
+    void givenSnapshotReadModeThenReturnCityWithoutRepository() throws CityNotFoundException {
+        CityDTO expectedCityDTO = createFakeDTO();
+
+        when(mockedSnapshotHolder.isServingReads()).thenReturn(true);
+        when(mockedSnapshotHolder.get()).thenReturn(CitySnapshot.of(Collections.singletonList(expectedCityDTO)));
+
+        CityDTO cityDTO = cityService.getCityById(expectedCityDTO.getId());
+
+        assertEquals(expectedCityDTO, cityDTO);
+        verifyNoInteractions(mockedRepository);
+    }
+
     @Test
     @DisplayName("Dado um ID de cidade inválido, então lança exceção")
     void givenAnInvalidCityIdThenThrowException() {
         var invalidCityId = 1L;
 
-        when( mockedRepository.findById(invalidCityId)).thenReturn(Optional.ofNullable(any(City.class)));
+        when(mockedRepository.findById(invalidCityId)).thenReturn(Optional.empty());
+        when(mockedVersionTracker.getCityVersion(invalidCityId)).thenReturn(4L);
+
+        CityNotFoundException exception = assertThrows(CityNotFoundException.class,
+                () -> cityService.getCityById(invalidCityId));
+        assertEquals(0, exception.getStackTrace().length);
+        assertEquals(City.class.getName() + " not found with ID 1", exception.getMessage());
+        verify(mockedMissCache).rememberMissingId(invalidCityId, 4L);
+        verify(mockedMetrics).recordQuery(eq(CityMetrics.Query.FIND_BY_ID), anyLong(), eq(0));
+        verify(mockedMetrics).recordOperation(eq(CityMetrics.Operation.GET_BY_ID), eq(MetricResult.NOT_FOUND), anyLong());
+    }
+
+    @Test
+    @DisplayName("Dado um nome já conhecido como inexistente, então lança exceção sem consultar o banco")
+    void givenAKnownMissingNameThenThrowExceptionWithoutRepository() {
+        var missingName = "Joinvile";
+
+        when(mockedVersionTracker.getCityNameVersion(missingName)).thenReturn(4L);
+        when(mockedMissCache.isMissingName(missingName, 4L)).thenReturn(true);
 
-        assertThrows(CityNotFoundException.class, () -> cityService.getCityById(invalidCityId));
+        assertThrows(CityNotFoundException.class, () -> cityService.getCityByName(missingName));
+        verify(mockedRepository, never()).findByName(anyString());
+        verify(mockedMetrics).recordOperation(eq(CityMetrics.Operation.GET_BY_NAME), eq(MetricResult.NOT_FOUND), anyLong());
     }
 
 
@@ -88,9 +172,39 @@ public class CityServiceTests {
         assertEquals(expectedCityDTOList.get(0).getId(), cityDTO.getId());
     }
 
+    @Test
+    @DisplayName("Dado um estado, então retorna as cidades desse estado")
+    void givenAStateThenReturnCitiesOfThatState() {
+        City expectedCity = createFakeEntity();
+
+        when(mockedRepository.findByStateOrderByIdAsc(State.SC)).thenReturn(Collections.singletonList(expectedCity));
+
+        List<CityDTO> cities = cityService.getCitiesByState(State.SC);
+
+        assertEquals(1, cities.size());
+        assertEquals(expectedCity.getName(), cities.get(0).getName());
+    }
+
+    @Test
+    @DisplayName("Dado um cursor e um limite, então retorna a página seguinte com o próximo cursor")
+    void givenACursorAndLimitThenReturnNextPageWithCursor() {
+        City firstCity = createFakeEntity();
+        City secondCity = createFakeEntity();
+        secondCity.setId(2L);
+
+        when(mockedRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 2)))
+                .thenReturn(Arrays.asList(firstCity, secondCity));
+
+        CityPageResponseDTO page = cityService.getCitiesPage(null, 1);
+
+        assertEquals(1, page.getContent().size());
+        assertEquals(firstCity.getId(), page.getContent().get(0).getId());
+        assertEquals(firstCity.getId(), page.getNextCursor());
+    }
+
     @Test
     @DisplayName("Dado um ID da cidade válido e informações de atualização, então retorna sucesso na atualização")
-    void givenAnValidCityIdAndUpdateInfoThenReturnSuccessOnUpdate() throws CityNotFoundException {
+    void givenAnValidCityIdAndUpdateInfoThenReturnSuccessOnUpdate() throws Exception {
         var updatedCityId = 2L;
 
         CityDTO updateCityDTORequest = createFakeDTO();
@@ -100,18 +214,65 @@ public class CityServiceTests {
 
         City expectedCityToUpdate = createFakeEntity();
         expectedCityToUpdate.setId(updatedCityId);
+        expectedCityToUpdate.setVersion(0L);
 
-        City expectedCityUpdated = createFakeEntity();
-        expectedCityUpdated.setId(updatedCityId);
-        expectedCityToUpdate.setName(updateCityDTORequest.getName());
-        expectedCityToUpdate.setState(updateCityDTORequest.getState());
+        when(mockedSnapshotHolder.get()).thenReturn(CitySnapshot.EMPTY);
+        when(mockedRepository.findById(updatedCityId)).thenReturn(Optional.of(expectedCityToUpdate));
+        when(mockedRepository.updateByIdAndVersion(updatedCityId, 0L, "Porto Alegre", State.RS, 8L)).thenReturn(1);
 
-        when(mockedRepository.findById(updatedCityId)).thenReturn(Optional.of(expectedCityUpdated));
-        when(mockedRepository.save(any(City.class))).thenReturn(expectedCityUpdated);
-
-        MessageResponseDTO successMessage = cityService.updateCityById(updatedCityId, updateCityDTORequest);
+        MessageResponseDTO successMessage = cityService.updateCityById(updatedCityId, updateCityDTORequest, null);
 
         assertEquals("City successfully updated with ID 2", successMessage.getMessage());
+        verify(mockedRepository, never()).save(any(City.class));
+        verify(mockedEventPublisher).publishEvent(any(CityChangedEvent.class));
+    }
+
+    @Test
+    @DisplayName("Com a cidade no snapshot, a atualização é feita com um único comando no banco")
+    void givenCityInSnapshotThenUpdateWithoutSelect() throws Exception {
+        CityDTO existingCity = createFakeDTO();
+        existingCity.setVersion(3L);
+
+        CityDTO updateCityDTORequest = createFakeDTO();
+        updateCityDTORequest.setName("Joinville Atualizada");
+
+        when(mockedSnapshotHolder.get()).thenReturn(CitySnapshot.of(Collections.singletonList(existingCity)));
+        when(mockedRepository.updateByIdAndVersion(1L, 3L, "Joinville Atualizada", State.SC, 8L)).thenReturn(1);
+
+        cityService.updateCityById(1L, updateCityDTORequest, null);
+
+        verify(mockedRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    @DisplayName("Dado um If-Match com versão antiga, então lança exceção de versão na atualização")
+    void givenStaleVersionThenThrowVersionMismatchOnUpdate() {
+        CityDTO existingCity = createFakeDTO();
+        existingCity.setVersion(3L);
+
+        when(mockedSnapshotHolder.get()).thenReturn(CitySnapshot.of(Collections.singletonList(existingCity)));
+        when(mockedRepository.updateByIdAndVersion(1L, 2L, "Joinville", State.SC, 8L)).thenReturn(0);
+        when(mockedRepository.existsById(1L)).thenReturn(true);
+
+        assertThrows(CityVersionMismatchException.class,
+                () -> cityService.updateCityById(1L, createFakeDTO(), 2L));
+        verify(mockedEventPublisher, never()).publishEvent(any(CityChangedEvent.class));
+    }
+
+    @Test
+    @DisplayName("Dada uma cidade alterada a cada tentativa, então a atualização desiste com conflito")
+    void givenACityChangedOnEveryAttemptThenGiveUpWithConflictOnUpdate() {
+        City contendedCity = createFakeEntity();
+        contendedCity.setVersion(4L);
+
+        when(mockedSnapshotHolder.get()).thenReturn(CitySnapshot.EMPTY);
+        when(mockedRepository.findById(1L)).thenReturn(Optional.of(contendedCity));
+        when(mockedRepository.updateByIdAndVersion(1L, 4L, "Joinville", State.SC, 8L)).thenReturn(0);
+
+        assertThrows(CityUpdateConflictException.class,
+                () -> cityService.updateCityById(1L, createFakeDTO(), null));
+        verify(mockedRepository, times(CityService.MAX_UPDATE_ATTEMPTS))
+                .updateByIdAndVersion(1L, 4L, "Joinville", State.SC, 8L);
     }
 
     @Test
@@ -123,21 +284,98 @@ public class CityServiceTests {
         updateCityDTORequest.setId(invalidCityId);
         updateCityDTORequest.setName("Joinville Atualizada");
 
-        when(mockedRepository.findById(invalidCityId)).thenReturn(Optional.ofNullable(any(City.class)));
+        when(mockedSnapshotHolder.get()).thenReturn(CitySnapshot.EMPTY);
+        when(mockedRepository.findById(invalidCityId)).thenReturn(Optional.empty());
 
         assertThrows(CityNotFoundException.class,
-                () -> cityService.updateCityById(invalidCityId, updateCityDTORequest));
+                () -> cityService.updateCityById(invalidCityId, updateCityDTORequest, null));
     }
 
     @Test
     @DisplayName("Dado um ID de cidade válido, então retorne sucesso ao excluir")
-    void testGivenValidCityIdThenReturnSuccessOnDelete() throws CityNotFoundException {
+    void testGivenValidCityIdThenReturnSuccessOnDelete() throws Exception {
         var deletedCityId = 1L;
         City expectedCityToDelete = createFakeEntity();
 
+        when(mockedSnapshotHolder.get()).thenReturn(CitySnapshot.EMPTY);
         when(mockedRepository.findById(deletedCityId)).thenReturn(Optional.of(expectedCityToDelete));
-        cityService.deleteCityById(deletedCityId);
+        when(mockedRepository.deleteWithTombstone(deletedCityId, null, 8L)).thenReturn(1);
+
+        cityService.deleteCityById(deletedCityId, null);
+
+        verify(mockedRepository, times(1)).deleteWithTombstone(deletedCityId, null, 8L);
+    }
+
+    @Test
+    @DisplayName("Dada uma versão, então retorna apenas as cidades alteradas e excluídas depois dela")
+    void givenAVersionThenReturnOnlyCitiesChangedAfterIt() {
+        City changedCity = createFakeEntity();
+
+        when(mockedModificationClock.getCurrentVersion()).thenReturn(12L);
+        when(mockedRepository.findChangedBetween(10L, 12L)).thenReturn(Collections.singletonList(changedCity));
+        when(mockedRepository.findDeletedBetween(10L, 12L)).thenReturn(Collections.singletonList(5L));
+
+        CityDeltaResponseDTO delta = cityService.getCitiesChangedSince(10L);
+
+        assertEquals(12L, delta.getVersion());
+        assertEquals(changedCity.getId(), delta.getChanged().get(0).getId());
+        assertEquals(Collections.singletonList(5L), delta.getDeleted());
+        verify(mockedRepository, never()).findAll();
+    }
+
+    @Test
+    @DisplayName("Dados muitos IDs e nomes, então busca em lotes com IN e informa os não encontrados")
+    void givenManyIdsAndNamesThenLookUpInChunksAndReportMissing() {
+        City foundCity = createFakeEntity();
+        List<Long> ids = LongStream.rangeClosed(1, CityService.LOOKUP_CHUNK_SIZE + 1)
+                .boxed()
+                .collect(Collectors.toList());
+
+        when(mockedRepository.findByIdIn(any())).thenReturn(Collections.singletonList(foundCity), List.of());
+        when(mockedRepository.findByNameIn(List.of("Joinville", "Atlântida")))
+                .thenReturn(Collections.singletonList(foundCity));
+
+        CityLookupResponseDTO lookup = cityService.lookupCities(CityLookupDTO
+                .builder()
+                .ids(ids)
+                .names(Arrays.asList("Joinville", "Atlântida", "Joinville"))
+                .build());
+
+        assertEquals(1, lookup.getCities().size());
+        assertEquals(foundCity.getId(), lookup.getCities().get(0).getId());
+        assertEquals(CityService.LOOKUP_CHUNK_SIZE, lookup.getMissingIds().size());
+        assertEquals(Collections.singletonList("Atlântida"), lookup.getMissingNames());
+        verify(mockedRepository, times(2)).findByIdIn(any());
+        verify(mockedRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    @DisplayName("Dadas buscas simultâneas pelo mesmo nome, então uma única consulta é feita e compartilhada")
+    void givenConcurrentLookupsOfTheSameNameThenShareASingleQuery() throws Exception {
+        City expectedCity = createFakeEntity();
+        CountDownLatch release = new CountDownLatch(1);
+
+        when(mockedRepository.findByName(expectedCity.getName())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(expectedCity);
+        });
+
+        CompletableFuture<CityDTO> first = CompletableFuture.supplyAsync(() -> getCityByName(expectedCity.getName()));
+        verify(mockedRepository, timeout(5000)).findByName(expectedCity.getName());
+        CompletableFuture<CityDTO> second = CompletableFuture.supplyAsync(() -> getCityByName(expectedCity.getName()));
+        verify(mockedMetrics, timeout(5000)).recordCoalesced(CityMetrics.Operation.GET_BY_NAME);
+        release.countDown();
+
+        assertEquals(expectedCity.getName(), first.get(5, TimeUnit.SECONDS).getName());
+        assertSame(first.get(), second.get(5, TimeUnit.SECONDS));
+        verify(mockedRepository, times(1)).findByName(expectedCity.getName());
+    }
 
-        verify(mockedRepository, times(1)).deleteById(deletedCityId);
+    private CityDTO getCityByName(String name) {
+        try {
+            return cityService.getCityByName(name);
+        } catch (CityNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
     }
 }
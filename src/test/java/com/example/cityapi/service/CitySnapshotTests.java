@@ -0,0 +1,55 @@
+package com.example.cityapi.service;
+
+import com.example.cityapi.dto.request.CityDTO;
+import com.example.cityapi.enums.State;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DisplayName("Teste unitário do snapshot de cidades")
+public class CitySnapshotTests {
+
+    private static final String[] NAMES = {"Joinville", "São José", "São Paulo", "Blumenau"};
+
+    private static final State[] STATES = {State.SC, State.SP, State.PR};
+
+    @Test
+    @DisplayName("Dada uma sequência de alterações, então o snapshot atualizado é igual ao reconstruído")
+    void givenASequenceOfChangesThenTheChangedSnapshotMatchesARebuild() {
+        Random random = new Random(42);
+        Map<Long, CityDTO> cities = new HashMap<>();
+        CitySnapshot snapshot = CitySnapshot.EMPTY;
+
+        for (int i = 0; i < 500; i++) {
+            long id = 1 + random.nextInt(20);
+            if (random.nextInt(4) == 0) {
+                cities.remove(id);
+                snapshot = snapshot.without(id);
+            } else {
+                CityDTO city = CityDTO.builder()
+                        .id(id)
+                        .name(NAMES[random.nextInt(NAMES.length)])
+                        .state(STATES[random.nextInt(STATES.length)])
+                        .build();
+                cities.put(id, city);
+                snapshot = snapshot.with(city);
+            }
+
+            CitySnapshot rebuilt = CitySnapshot.of(cities.values());
+            assertEquals(rebuilt.getCities(), snapshot.getCities());
+            for (String name : NAMES) {
+                assertEquals(rebuilt.findByName(name), snapshot.findByName(name), name);
+                assertEquals(rebuilt.searchByName(name, 20, 1), snapshot.searchByName(name, 20, 1), name);
+            }
+            for (State state : STATES) {
+                assertArrayEquals(rebuilt.getIdsByState(state), snapshot.getIdsByState(state), state.name());
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.cityapi.service;
+
+import com.example.cityapi.dto.request.CityDTO;
+import com.example.cityapi.enums.State;
+import com.example.cityapi.event.CityChangedEvent;
+import com.example.cityapi.repository.CityRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collections;
+
+import static com.example.cityapi.utils.CityUtils.createFakeDTO;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+@DisplayName("Teste unitário da contagem de cidades por estado")
+@ExtendWith(MockitoExtension.class)
+public class CityStateStatisticsTests {
+
+    @Mock
+    private CityRepository mockedRepository;
+
+    private CityStateStatistics cityStateStatistics;
+
+    @BeforeEach
+    void setUp() {
+        cityStateStatistics = new CityStateStatistics(mockedRepository, new CityModificationClock(mockedRepository));
+    }
+
+    @Test
+    @DisplayName("Dado os eventos de alteração, então mantém as contagens por estado")
+    void givenChangeEventsThenKeepCountsPerState() {
+        when(mockedRepository.countCitiesByState())
+                .thenReturn(Collections.singletonList(new Object[]{State.SC, 2L}));
+        cityStateStatistics.reload();
+
+        CityDTO joinville = createFakeDTO();
+        CityDTO movedToParana = createFakeDTO();
+        movedToParana.setState(State.PR);
+
+        cityStateStatistics.onCityChanged(CityChangedEvent.created(joinville));
+        cityStateStatistics.onCityChanged(CityChangedEvent.updated(joinville, movedToParana));
+
+        assertEquals(2L, cityStateStatistics.count(State.SC));
+        assertEquals(1L, cityStateStatistics.count(State.PR));
+
+        cityStateStatistics.onCityChanged(CityChangedEvent.deleted(movedToParana));
+
+        assertEquals(0L, cityStateStatistics.count(State.PR));
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.cityapi.service;
+
+import com.example.cityapi.dto.request.CityDTO;
+import com.example.cityapi.enums.State;
+import com.example.cityapi.event.CityChangedEvent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Teste unitário do controle de versões das cidades")
+public class CityVersionTrackerTests {
+
+    private final CityVersionTracker versionTracker = new CityVersionTracker();
+
+    @Test
+    @DisplayName("Quando cidades são criadas e removidas, então suas versões são esquecidas sem nunca diminuir")
+    void whenCitiesAreCreatedAndDeletedThenTheirVersionsAreForgottenWithoutGoingBack() {
+        for (long id = 1; id <= 100; id++) {
+            CityDTO city = city(id, "Cidade " + id);
+            versionTracker.onCityChanged(CityChangedEvent.created(city));
+            long createdVersion = versionTracker.getCityVersion(id);
+
+            versionTracker.onCityChanged(CityChangedEvent.deleted(city));
+
+            assertTrue(versionTracker.getCityVersion(id) > createdVersion);
+            assertTrue(versionTracker.getCityNameVersion(city.getName()) > createdVersion);
+        }
+
+        assertEquals(0, versionTracker.getTrackedKeys());
+    }
+
+    @Test
+    @DisplayName("Quando uma cidade é renomeada, então o nome antigo é esquecido e sua versão avança")
+    void whenACityIsRenamedThenTheOldNameIsForgottenAndItsVersionMovesOn() {
+        CityDTO city = city(1L, "Joinville");
+        versionTracker.onCityChanged(CityChangedEvent.created(city));
+        long createdVersion = versionTracker.getCityNameVersion("Joinville");
+
+        versionTracker.onCityChanged(CityChangedEvent.updated(city, city(1L, "Blumenau")));
+
+        assertTrue(versionTracker.getCityNameVersion("Joinville") > createdVersion);
+        assertEquals(2, versionTracker.getTrackedKeys());
+    }
+
+    private static CityDTO city(Long id, String name) {
+        return CityDTO.builder().id(id).name(name).state(State.SC).version(0L).build();
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.cityapi.startup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Starts the native executable and the JVM jar built by the {@code native} Maven profile and
+ * compares the time until the first request is answered and the resident memory afterwards.
+ * Each build then answers a delta sync and a batch lookup, whose DTOs only serialize in the
+ * native image when they are listed in its reflection configuration. Only runs when both
+ * builds exist, see {@code mvn -Pnative verify}.
+ */
+@Slf4j
+@DisplayName("Comparação de inicialização entre o executável nativo e a JVM")
+@EnabledOnOs(OS.LINUX)
+@EnabledIf("buildsPresent")
+class NativeStartupIT {
+
+    private static final String NATIVE_EXECUTABLE = System.getProperty("native.executable", "target/city-api");
+
+    private static final String JVM_JAR = System.getProperty("jvm.jar", "target/city-api-0.0.1-SNAPSHOT-exec.jar");
+
+    private static final long NATIVE_STARTUP_MAX_MS = Long.getLong("native.startup.max-ms", 200);
+
+    private static final long TIMEOUT_MS = TimeUnit.MINUTES.toMillis(2);
+
+    @Test
+    @DisplayName("O executável nativo deve atender a primeira requisição mais rápido e com menos memória")
+    void givenBothBuildsThenNativeStartsFasterWithLessMemory() throws Exception {
+        Startup jvm = start("jvm", "java", "-jar", JVM_JAR);
+        Startup nativeImage = start("native", NATIVE_EXECUTABLE);
+
+        log.info("jvm startup {} ms, rss {} MB", jvm.millis, jvm.rssKb / 1024);
+        log.info("native startup {} ms, rss {} MB", nativeImage.millis, nativeImage.rssKb / 1024);
+
+        assertTrue(nativeImage.millis <= NATIVE_STARTUP_MAX_MS,
+                "native startup took " + nativeImage.millis + " ms, target is " + NATIVE_STARTUP_MAX_MS + " ms");
+        assertTrue(nativeImage.millis < jvm.millis, "native startup is not faster than the JVM");
+        assertTrue(nativeImage.rssKb < jvm.rssKb, "native RSS is not below the JVM RSS");
+    }
+
+    static boolean buildsPresent() {
+        return new File(NATIVE_EXECUTABLE).canExecute() && new File(JVM_JAR).isFile();
+    }
+
+    private static Startup start(String name, String... command) throws Exception {
+
+        int port = freePort();
+        List<String> arguments = new ArrayList<>(Arrays.asList(command));
+        arguments.add("--server.port=" + port);
+
+        Path log = Paths.get("target", "native-startup", name + ".log");
+        Files.createDirectories(log.getParent());
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(arguments)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        try {
+            awaitFirstResponse(process, new URL("http://localhost:" + port + "/actuator/health/liveness"));
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            long rssKb = residentKb(process.pid());
+
+            String citiesUrl = "http://localhost:" + port + "/api/v1/cities";
+            assertTrue(request(name, "GET", citiesUrl + "?since=0", null).contains("\"deleted\""),
+                    name + " delta sync response has no deleted list");
+            assertTrue(request(name, "POST", citiesUrl + "/lookup", "{\"ids\":[1],\"names\":[\"Joinville\"]}")
+                    .contains("\"missingNames\""), name + " lookup response has no missing names");
+
+            return new Startup(millis, rssKb);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private static void awaitFirstResponse(Process process, URL url) throws InterruptedException {
+
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (System.currentTimeMillis() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Process exited with " + process.exitValue() + " before answering");
+            }
+            try {
+                HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+                connection.setConnectTimeout(100);
+                if (connection.getResponseCode() == 200) {
+                    return;
+                }
+            } catch (IOException notListeningYet) {
+                // keep polling
+            }
+            Thread.sleep(5);
+        }
+        throw new IllegalStateException("No answer from " + url + " within " + TIMEOUT_MS + " ms");
+    }
+
+    private static String request(String name, String method, String url, String json) throws IOException {
+
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestMethod(method);
+        if (json != null) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            try (OutputStream body = connection.getOutputStream()) {
+                body.write(json.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        assertEquals(200, connection.getResponseCode(), name + " " + method + " " + url);
+        try (InputStream body = connection.getInputStream()) {
+            return new String(body.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static long residentKb(long pid) throws IOException {
+
+        for (String line : Files.readAllLines(Paths.get("/proc", Long.toString(pid), "status"))) {
+            if (line.startsWith("VmRSS:")) {
+                return Long.parseLong(line.replaceAll("\\D", ""));
+            }
+        }
+        throw new IllegalStateException("No VmRSS for process " + pid);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static class Startup {
+
+        private final long millis;
+
+        private final long rssKb;
+
+        Startup(long millis, long rssKb) {
+            this.millis = millis;
+            this.rssKb = rssKb;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.cityapi.startup;
+
+import com.example.cityapi.web.CityListBodyCache;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.core.metrics.ApplicationStartup;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.verify;
+
+@DisplayName("Teste do aquecimento da aplicação")
+@ExtendWith(MockitoExtension.class)
+class ResourceInitializerTests {
+
+    @Mock
+    private CityListBodyCache mockedCityListBodyCache;
+
+    @Test
+    @DisplayName("A aplicação só fica pronta depois que o aquecimento termina")
+    void givenWarmUpThenReadyOnlyAfterAllTasksComplete() {
+        ResourceInitializer initializer = new ResourceInitializer(mockedCityListBodyCache, ApplicationStartup.DEFAULT,
+                Duration.ZERO, Duration.ZERO);
+
+        assertEquals(Status.OUT_OF_SERVICE, initializer.health().getStatus());
+
+        initializer.start().join();
+
+        assertEquals(Status.UP, initializer.health().getStatus());
+        verify(mockedCityListBodyCache).get();
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.cityapi.web;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DisplayName("Teste unitário do controle de admissão")
+public class AdmissionControlFilterTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    @Test
+    @DisplayName("Dado um cliente acima da taxa, então responde 429 com Retry-After até o próximo token")
+    void givenAClientAboveTheRateThenReturn429WithRetryAfter() throws Exception {
+        AdmissionControlFilter filter = filter(1, 2, 10);
+
+        assertEquals(200, perform(filter, "10.0.0.1").getStatus());
+        assertEquals(200, perform(filter, "10.0.0.1").getStatus());
+
+        MockHttpServletResponse limited = perform(filter, "10.0.0.1");
+        assertEquals(429, limited.getStatus());
+        assertEquals("1", limited.getHeader("Retry-After"));
+        assertEquals(200, perform(filter, "10.0.0.2").getStatus());
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertEquals(200, perform(filter, "10.0.0.1").getStatus());
+        assertEquals(1.0, registry.get(AdmissionControlFilter.ADMISSION_METRIC)
+                .tag("decision", "rate_limited").counter().count());
+    }
+
+    @Test
+    @DisplayName("Com todas as vagas ocupadas, então descarta a requisição com 503 sem enfileirar")
+    void givenAllSlotsTakenThenShedWith503() throws Exception {
+        AdmissionControlFilter filter = filter(100, 100, 1);
+        MockHttpServletResponse shed = new MockHttpServletResponse();
+
+        filter.doFilter(request("10.0.0.1"), new MockHttpServletResponse(),
+                (request, response) -> filter.doFilter(request("10.0.0.2"), shed, new MockFilterChain()));
+
+        assertEquals(503, shed.getStatus());
+        assertEquals("1", shed.getHeader("Retry-After"));
+        assertEquals(0.0, registry.get(AdmissionControlFilter.ADMISSION_METRIC + ".in-flight").gauge().value());
+    }
+
+    private AdmissionControlFilter filter(double requestsPerSecond, int burst, int maxConcurrent) {
+
+        AdmissionControlProperties properties = new AdmissionControlProperties();
+        properties.setRequestsPerSecond(requestsPerSecond);
+        properties.setBurst(burst);
+        properties.setMaxQueueWait(Duration.ZERO);
+        return new AdmissionControlFilter(properties, maxConcurrent, registry, nanos::get);
+    }
+
+    private static MockHttpServletResponse perform(AdmissionControlFilter filter, String address) throws Exception {
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(address), response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String address) {
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/cities");
+        request.setRemoteAddr(address);
+        return request;
+    }
+}